@@ -0,0 +1,88 @@
+package drwtetris;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of short games played on many boards at once: each operation
+ * plays gameShapes random shapes on every board, in lockstep on a
+ * BoardArena, or one board after the other on a Matrix per board.
+ * The pieces counter reports the shapes dropped per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardArenaBenchmark {
+    private static final Shape.ShapeType[] SHAPE_TYPES = Shape.ShapeType.values();
+
+    @Param({ "10000" })
+    int boards;
+
+    @Param({ "20" })
+    int gameShapes;
+
+    private BoardArena arena;
+    private Matrix[] matrices;
+    // The shapes dropped: [shape][board]
+    private Piece[][] pieces;
+    private int[][] columns;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        pieces = new Piece[gameShapes][boards];
+        columns = new int[gameShapes][boards];
+        for (int i = 0; i < gameShapes; i++) {
+            for (int board = 0; board < boards; board++) {
+                Piece piece = Piece.of(SHAPE_TYPES[random.nextInt(SHAPE_TYPES.length)], random.nextInt(Piece.ROTATIONS));
+                pieces[i][board] = piece;
+                columns[i][board] = random.nextInt(Matrix.COLS - piece.width() + 1);
+            }
+        }
+        arena = new BoardArena(boards, Matrix.COLS);
+        matrices = new Matrix[boards];
+        for (int board = 0; board < boards; board++) {
+            matrices[board] = new Matrix();
+        }
+    }
+
+    @Benchmark
+    public int arena(Pieces counter) {
+        arena.clear();
+        for (int i = 0; i < gameShapes; i++) {
+            arena.drop(pieces[i], columns[i]);
+        }
+        counter.pieces += (long) boards * gameShapes;
+        return arena.getHeight(0);
+    }
+
+    @Benchmark
+    public int matrices(Pieces counter) {
+        int height = 0;
+        for (int board = 0; board < boards; board++) {
+            Matrix matrix = matrices[board];
+            matrix.clearMatrix();
+            for (int i = 0; i < gameShapes; i++) {
+                matrix.addPieceToMatrix(pieces[i][board], columns[i][board]);
+            }
+            height += matrix.getHeight();
+        }
+        counter.pieces += (long) boards * gameShapes;
+        return height;
+    }
+}
@@ -0,0 +1,74 @@
+package drwtetris;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of Matrix.clearLines on a stack of the given height and width,
+ * with CLEARED_ROWS full rows spread over its bottom rows.
+ * Each operation builds the stack, then clears it; buildStack measures
+ * the building alone, to be subtracted.
+ * Run with --add-modules jdk.incubator.vector (in the JMH -jvmArgs) to test
+ * wide rows with the Vector API.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClearLinesBenchmark {
+    /** Number of full rows in the stack */
+    public static final int CLEARED_ROWS = 4;
+
+    @Param({ "16", "1024" })
+    int stackRows;
+
+    @Param({ "10", "1024" })
+    int cols;
+
+    private Matrix matrix;
+
+    @Setup
+    public void setUp() {
+        matrix = new Matrix(cols);
+    }
+
+    @Benchmark
+    public int clearLines() {
+        buildStack();
+        return matrix.clearLines();
+    }
+
+    @Benchmark
+    public int buildStack() {
+        matrix.clearMatrix();
+        for (int row = 0; row < stackRows; row++) {
+            // Full rows, or rows but the last column
+            fillRow(row, row % 2 == 0 && row < 2 * CLEARED_ROWS ? cols : cols - 1);
+        }
+        for (int col = 0; col < cols; col++) {
+            matrix.heights[col] = col == cols - 1 ? 2 * CLEARED_ROWS - 1 : stackRows;
+        }
+        matrix.height = stackRows;
+        return matrix.getHeight();
+    }
+
+    // Fill the first count cells of the row
+    private void fillRow(int row, int count) {
+        for (int col = 0; col < count; col += 64) {
+            matrix.rows.orBits(row, col, -1L >>> Math.max(0, 64 - (count - col)));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package drwtetris;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of GameSession.drop, one shape per operation, on games of
+ * gameShapes random shapes; and of a whole pooled game, from acquire() to
+ * close().
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameSessionBenchmark {
+    private static final Shape.ShapeType[] SHAPE_TYPES = Shape.ShapeType.values();
+
+    @Param({ "100", "10000" })
+    int gameShapes;
+
+    private final SessionPool pool = new SessionPool();
+    private GameSession session;
+    private Shape.ShapeType[] shapeTypes;
+    private int[] columns;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        shapeTypes = new Shape.ShapeType[gameShapes];
+        columns = new int[gameShapes];
+        for (int i = 0; i < gameShapes; i++) {
+            shapeTypes[i] = SHAPE_TYPES[random.nextInt(SHAPE_TYPES.length)];
+            columns[i] = random.nextInt(Matrix.COLS - Piece.of(shapeTypes[i]).width() + 1);
+        }
+        session = new GameSession();
+    }
+
+    @Benchmark
+    public int drop() {
+        int i = next;
+        if (i == gameShapes) {
+            session.reset();
+            i = 0;
+        }
+        next = i + 1;
+        return session.drop(shapeTypes[i], columns[i]);
+    }
+
+    @Benchmark
+    public int pooledGame() {
+        try (GameSession game = pool.acquire()) {
+            for (int i = 0; i < gameShapes; i++) {
+                game.drop(shapeTypes[i], columns[i]);
+            }
+            return game.getHeight();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package drwtetris;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of playing whole workloads on a Matrix: line by line through
+ * processLine, shape by shape through addShapeToMatrix (input already
+ * decoded), and a whole input file through newGame.
+ * Each operation plays the full workload; the "pieces" result gives the
+ * throughput in shapes per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatrixBenchmark {
+
+    @Param({ "SHORT_LINES", "LONG_LINES", "LINE_CLEARS", "TALL_STACKS" })
+    Workload workload;
+
+    private String[] lines;
+    private long shapes;
+    // The lines decoded, per line the ShapeType ordinals and columns
+    private int[][] shapeIdx, columns;
+    private Path inputFile;
+    private Matrix matrix;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        lines = workload.lines();
+        shapes = Workload.countShapes(lines);
+
+        shapeIdx = new int[lines.length][];
+        columns = new int[lines.length][];
+        for (int line = 0; line < lines.length; line++) {
+            String[] tokens = lines[line].split(",");
+            shapeIdx[line] = new int[tokens.length];
+            columns[line] = new int[tokens.length];
+            for (int i = 0; i < tokens.length; i++) {
+                shapeIdx[line][i] = Shape.ShapeType.valueOf(tokens[i].substring(0, 1)).ordinal();
+                columns[line][i] = Integer.parseInt(tokens[i].substring(1));
+            }
+        }
+
+        inputFile = Files.createTempFile("drwtetris-" + workload, ".txt");
+        Files.write(inputFile, String.join("\n", lines).getBytes(StandardCharsets.US_ASCII));
+        matrix = new Matrix();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(inputFile);
+    }
+
+    @Benchmark
+    public void processLine(Pieces pieces, Blackhole bh) {
+        for (String line : lines) {
+            bh.consume(matrix.processLine(line));
+            matrix.clearMatrix();
+        }
+        pieces.pieces += shapes;
+    }
+
+    @Benchmark
+    public void addShapeToMatrix(Pieces pieces, Blackhole bh) {
+        for (int line = 0; line < shapeIdx.length; line++) {
+            int[] lineShapes = shapeIdx[line];
+            int[] lineColumns = columns[line];
+            for (int i = 0; i < lineShapes.length; i++) {
+                matrix.addShapeToMatrix(lineShapes[i], lineColumns[i]);
+            }
+            bh.consume(matrix.getHeight());
+            matrix.clearMatrix();
+        }
+        pieces.pieces += shapes;
+    }
+
+    @Benchmark
+    public void newGame(Pieces pieces) throws IOException {
+        matrix.newGame(inputFile, height -> { });
+        pieces.pieces += shapes;
+    }
+}
@@ -0,0 +1,22 @@
+package drwtetris;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the shapes (pieces) dropped by a benchmark, reported by JMH as
+ * the "pieces" secondary result in pieces per second.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Pieces {
+    public long pieces;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        pieces = 0;
+    }
+}
@@ -0,0 +1,80 @@
+package drwtetris;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of PlacementSearch: each operation searches the next
+ * lookahead shapes on a single thread, from a board of 30 random shapes.
+ * The placements counter reports the placements tried per second.
+ * The transposition table is cleared before each search, so searches are
+ * not answered from the table.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlacementSearchBenchmark {
+    private static final Shape.ShapeType[] SHAPE_TYPES = Shape.ShapeType.values();
+
+    @Param({ "2", "3" })
+    int lookahead;
+
+    private final ForkJoinPool pool = new ForkJoinPool(1);
+    private PlacementSearch search;
+    private Matrix matrix;
+    private Shape.ShapeType[] shapes;
+    private long evaluated;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long placements;
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        search = new PlacementSearch(pool, BoardEvaluator.DEFAULT, PlacementSearch.DEFAULT_TABLE_BITS);
+        matrix = new Matrix();
+        for (int i = 0; i < 30; i++) {
+            Piece piece = Piece.of(SHAPE_TYPES[random.nextInt(SHAPE_TYPES.length)], random.nextInt(Piece.ROTATIONS));
+            matrix.addPieceToMatrix(piece, random.nextInt(Matrix.COLS - piece.width() + 1));
+        }
+        shapes = new Shape.ShapeType[lookahead];
+        for (int i = 0; i < lookahead; i++) {
+            shapes[i] = SHAPE_TYPES[random.nextInt(SHAPE_TYPES.length)];
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        search.clearTable();
+    }
+
+    @Benchmark
+    public Placement search(Counters counters) {
+        Placement placement = search.search(matrix, shapes);
+        long total = search.getEvaluated();
+        counters.placements += total - evaluated;
+        evaluated = total;
+        return placement;
+    }
+}
@@ -0,0 +1,36 @@
+package drwtetris;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of Shape.newShape, cycling through all the shape letters.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShapeBenchmark {
+
+    private static final String[] LETTERS = { "Z", "S", "Q", "I", "L", "J", "T" };
+
+    private int next;
+
+    @Benchmark
+    public Shape newShape() {
+        int idx = next;
+        next = idx == LETTERS.length - 1 ? 0 : idx + 1;
+        return Shape.newShape(LETTERS[idx], idx);
+    }
+}
@@ -0,0 +1,82 @@
+package drwtetris;
+
+import java.util.Random;
+
+/**
+ * The Workload enum defines the synthetic inputs the benchmarks run on.
+ * Every workload is generated from a fixed seed, so runs are comparable.
+ */
+public enum Workload {
+    /** Many lines of 1 to 10 random shapes */
+    SHORT_LINES(20_000, 1, 10),
+    /** Few lines of 1000 random shapes each */
+    LONG_LINES(100, 1000, 1000),
+    /** Lines of shape groups that each fill and clear whole rows */
+    LINE_CLEARS(200, 500, 500),
+    /** Lines of 5000 shapes that never fill the last column, so no row is ever cleared */
+    TALL_STACKS(20, 5000, 5000);
+
+    // Shape groups filling whole rows of an empty (or flat) matrix
+    private static final String[][] CLEAR_GROUPS = {
+            { "Q0", "Q2", "Q4", "Q6", "Q8" },
+            { "I0", "I4", "Q8", "I0", "I4" }
+    };
+
+    private static final long SEED = 42;
+
+    private final int lines;
+    private final int minShapes, maxShapes;
+
+    Workload(int lines, int minShapes, int maxShapes) {
+        this.lines = lines;
+        this.minShapes = minShapes;
+        this.maxShapes = maxShapes;
+    }
+
+    /**
+     * Generate the lines of input of this workload.
+     */
+    public String[] lines() {
+        Random rand = new Random(SEED);
+        Shape.ShapeType[] shapeTypes = Shape.ShapeType.values();
+        String[] result = new String[lines];
+        for (int line = 0; line < lines; line++) {
+            int shapes = minShapes + rand.nextInt(maxShapes - minShapes + 1);
+            StringBuilder sb = new StringBuilder();
+            while (shapes > 0) {
+                if (this == LINE_CLEARS) {
+                    String[] group = CLEAR_GROUPS[rand.nextInt(CLEAR_GROUPS.length)];
+                    for (int i = 0; i < group.length && shapes > 0; i++, shapes--) {
+                        append(sb, group[i]);
+                    }
+                } else {
+                    Shape.ShapeType shapeType = shapeTypes[rand.nextInt(shapeTypes.length)];
+                    // Keep clear of the last column for tall stacks
+                    int cols = Matrix.COLS - Piece.of(shapeType).width() + (this == TALL_STACKS ? 0 : 1);
+                    append(sb, shapeType.name() + rand.nextInt(cols));
+                    shapes--;
+                }
+            }
+            result[line] = sb.toString();
+        }
+        return result;
+    }
+
+    /**
+     * Count the shapes of the given lines of input.
+     */
+    public static long countShapes(String[] lines) {
+        long shapes = 0;
+        for (String line : lines) {
+            shapes += line.split(",").length;
+        }
+        return shapes;
+    }
+
+    private static void append(StringBuilder sb, String token) {
+        if (sb.length() > 0) {
+            sb.append(',');
+        }
+        sb.append(token);
+    }
+}
@@ -0,0 +1,8 @@
+package drwtetris;
+
+/**
+ * The actions of the player on the falling shape, see Matrix.stepGame().
+ */
+public enum Action {
+    LEFT, RIGHT, ROTATE_LEFT, ROTATE_RIGHT, DOWN, SOFT_DROP, HARD_DROP
+}
@@ -0,0 +1,221 @@
+package drwtetris;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The BatchRunner class plays many input files in one JVM, so the JIT stays
+ * warm across the whole batch and no process is started per file.
+ *
+ * Each file is played by a worker of a pool, on the Matrix of the worker,
+ * and its results are written to a file of its own: the input name with
+ * OUTPUT_SUFFIX, in the output directory (next to the input by default).
+ * The largest files are started first, so that the workers finish together.
+ * A reader thread loads the files into the page cache ahead of the workers,
+ * mapping them without copying them, so they are in memory by the time they
+ * are played: reading overlaps playing. The results are written through the
+ * page cache too.
+ *
+ * A file that fails is reported and skipped; the others are still played.
+ */
+public class BatchRunner {
+    // == Define named constants ==
+    /** Suffix of the output file of an input file */
+    public final static String OUTPUT_SUFFIX = ".out";
+    /** Files of a directory played by default */
+    public final static String DEFAULT_GLOB = "*.txt";
+    /** Number of files read ahead of the workers, per worker */
+    public final static int READ_AHEAD_FILES = 2;
+    // Size of the regions the reader maps (in bytes)
+    private final static long READ_AHEAD_REGION = 1L << 30;
+
+    // == Define BatchRunner's properties ==
+    private final int threads;
+    // The output directory, null to write next to each input
+    private final Path outputDir;
+    // Each worker plays its files on its own Matrix
+    private final ThreadLocal<Matrix> matrices;
+
+    /**
+     * Constructor
+     * @param threads - number of workers
+     * @param cols - number of columns of the matrices
+     * @param outputDir - directory of the output files, null to write them
+     *                  next to the input files
+     */
+    public BatchRunner(int threads, int cols, Path outputDir) {
+        this.threads = threads;
+        this.outputDir = outputDir;
+        this.matrices = ThreadLocal.withInitial(() -> new Matrix(cols));
+    }
+
+    /**
+     * List the input files of the given arguments: a file is taken as is, a
+     * directory for its files matching the glob.
+     */
+    public static List<Path> listInputs(List<String> args, String glob) throws IOException {
+        List<Path> inputs = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Path.of(arg);
+            if (Files.isDirectory(path)) {
+                try (DirectoryStream<Path> dir = Files.newDirectoryStream(path, glob)) {
+                    for (Path file : dir) {
+                        if (Files.isRegularFile(file)) {
+                            inputs.add(file);
+                        }
+                    }
+                }
+            } else {
+                inputs.add(path);
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * The output file of an input file.
+     */
+    public Path outputOf(Path input) {
+        Path name = Path.of(input.getFileName() + OUTPUT_SUFFIX);
+        Path dir = outputDir != null ? outputDir : input.toAbsolutePath().getParent();
+        return dir.resolve(name);
+    }
+
+    /**
+     * Play all the input files, and report to the given stream.
+     * @return the number of files that failed
+     * @throws IllegalArgumentException if two inputs have the same output
+     *         file, e.g. files of the same name in an output directory;
+     *         nothing is played then
+     */
+    public int run(List<Path> inputs, PrintStream report) throws IOException {
+        Map<Path, Path> outputs = new HashMap<>();
+        for (Path path : inputs) {
+            Path other = outputs.put(outputOf(path).toAbsolutePath().normalize(), path);
+            if (other != null) {
+                throw new IllegalArgumentException(other + " and " + path + " have the same output file "
+                        + outputOf(path));
+            }
+        }
+        if (outputDir != null) {
+            Files.createDirectories(outputDir);
+        }
+        List<Input> batch = new ArrayList<>();
+        for (Path path : inputs) {
+            batch.add(new Input(path, Files.exists(path) ? Files.size(path) : 0));
+        }
+        batch.sort(Comparator.comparingLong((Input input) -> input.size).reversed());
+
+        long start = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        // The reader keeps at most this many files ahead of the workers
+        Semaphore readAhead = new Semaphore(threads * READ_AHEAD_FILES);
+        Thread reader = new Thread(() -> readAhead(batch, readAhead), "BatchRunner-reader");
+        reader.setDaemon(true);
+        reader.start();
+        AtomicInteger failed = new AtomicInteger();
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (Input input : batch) {
+                done.add(workers.submit(() -> {
+                    try {
+                        play(input);
+                    } catch (IOException | RuntimeException e) {
+                        failed.incrementAndGet();
+                        report.println(input.path + ": " + e);
+                    } finally {
+                        readAhead.release();
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            workers.shutdownNow();
+            reader.interrupt();
+        }
+        long nanos = System.nanoTime() - start;
+
+        long lines = 0, bytes = 0;
+        for (Input input : batch) {
+            lines += input.lines;
+            bytes += input.size;
+        }
+        double seconds = nanos / 1e9;
+        report.printf("%d files (%d failed), %d lines, %d bytes in %.3f s%n",
+                batch.size(), failed.get(), lines, bytes, seconds);
+        report.printf("%.1f files/s, %.0f lines/s, %.1f MB/s%n",
+                batch.size() / seconds, lines / seconds, bytes / seconds / (1 << 20));
+        return failed.get();
+    }
+
+    // Play an input file into its output file. A file that fails leaves no
+    //  output file.
+    private void play(Input input) throws IOException {
+        Matrix matrix = matrices.get();
+        Path output = outputOf(input.path);
+        try (ResultSink results = ResultSink.toFile(output)) {
+            matrix.newGame(input.path, height -> {
+                results.accept(height);
+                input.lines++;
+            });
+        } catch (IOException | RuntimeException e) {
+            // The last line may be left on the matrix
+            matrix.clearMatrix();
+            Files.deleteIfExists(output);
+            throw e;
+        }
+    }
+
+    // Load the files in the order they are played: only to have them in the
+    //  page cache when they are mapped. Loading a mapping reads the pages
+    //  without copying the bytes out of the page cache.
+    private static void readAhead(List<Input> batch, Semaphore readAhead) {
+        for (Input input : batch) {
+            try {
+                readAhead.acquire();
+            } catch (InterruptedException e) {
+                return;  // the batch is over
+            }
+            try (FileChannel channel = FileChannel.open(input.path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                for (long position = 0; position < size; position += READ_AHEAD_REGION) {
+                    channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(READ_AHEAD_REGION, size - position)).load();
+                }
+            } catch (IOException e) {
+                // Reported when played
+            }
+        }
+    }
+
+    // An input file, and the number of lines played from it
+    private static class Input {
+        final Path path;
+        final long size;
+        long lines;
+
+        Input(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+    }
+}
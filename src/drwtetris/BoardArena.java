@@ -0,0 +1,220 @@
+package drwtetris;
+
+import java.util.Arrays;
+
+/**
+ * A BoardArena holds many boards side by side, for simulating thousands of
+ * short games in lockstep, e.g. the random playouts of a Monte Carlo
+ * evaluation. There is no object per board: the boards are stored as
+ * arrays of all the boards.
+ *
+ * <ul>
+ * <li>rows: the rows of board b at [b * capacity, (b + 1) * capacity), one
+ *     long per row, bit col set if the cell is occupied; zero from the
+ *     height of the board up</li>
+ * <li>heights: the skyline of board b at [b * cols, (b + 1) * cols)</li>
+ * <li>stackHeights: the stack height of each board</li>
+ * </ul>
+ *
+ * A batch of drops, one piece per board, goes over the boards in order, so
+ * the rows touched stay close in memory. The boards are played as a Matrix
+ * of the same width would play them, and reach the same heights. As with
+ * SearchBoard, they are only as wide as a word, i.e. up to 64 columns.
+ * The capacity in rows per board grows as the stacks do.
+ */
+public final class BoardArena {
+    // == Define named constants ==
+    /** Widest board */
+    public final static int MAX_COLS = 64;
+    /** Rows per board to start with */
+    public final static int DEFAULT_CAPACITY = 32;
+    // Longest array the VMs allocate
+    private final static int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    // == Define BoardArena's properties ==
+    private final int boards;
+    private final int cols;
+    // Rows per board
+    private int capacity;
+    private long[] rows;
+    private final int[] heights;
+    private final int[] stackHeights;
+
+    /**
+     * Constructor: empty boards
+     * @param boards - number of boards
+     * @param cols - number of columns of each board
+     */
+    public BoardArena(int boards, int cols) {
+        this(boards, cols, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor: empty boards
+     * @param boards - number of boards
+     * @param cols - number of columns of each board
+     * @param capacity - rows per board to start with
+     * @throws IllegalArgumentException if the boards do not fit in arrays
+     */
+    public BoardArena(int boards, int cols, int capacity) {
+        if (cols <= 0 || cols > MAX_COLS) {
+            throw new IllegalArgumentException("Boards of " + cols + " columns are not supported, "
+                    + MAX_COLS + " at most");
+        }
+        if (boards <= 0) {
+            throw new IllegalArgumentException("No boards: " + boards);
+        }
+        this.boards = boards;
+        this.cols = cols;
+        this.capacity = Math.max(capacity, 4);
+        this.rows = new long[arrayLength(boards, this.capacity)];
+        this.heights = new int[arrayLength(boards, cols)];
+        this.stackHeights = new int[boards];
+    }
+
+    /**
+     * Empty all the boards.
+     */
+    public void clear() {
+        Arrays.fill(rows, 0L);
+        Arrays.fill(heights, 0);
+        Arrays.fill(stackHeights, 0);
+    }
+
+    /**
+     * Make every board a copy of the given matrix, of the same width.
+     */
+    public void load(Matrix matrix) {
+        for (int board = 0; board < boards; board++) {
+            load(board, matrix);
+        }
+    }
+
+    /**
+     * Make the board a copy of the given matrix, of the same width.
+     */
+    public void load(int board, Matrix matrix) {
+        if (matrix.getCols() != cols) {
+            throw new IllegalArgumentException("A matrix of " + matrix.getCols()
+                    + " columns loaded on boards of " + cols);
+        }
+        reserve(matrix.height);
+        int base = board * capacity;
+        for (int row = 0; row < matrix.height; row++) {
+            rows[base + row] = matrix.rows.word(row, 0);
+        }
+        Arrays.fill(rows, base + matrix.height, base + Math.max(matrix.height, stackHeights[board]), 0L);
+        System.arraycopy(matrix.heights, 0, heights, board * cols, cols);
+        stackHeights[board] = matrix.height;
+    }
+
+    /**
+     * Drop the same piece on every board, with its leftmost column at the
+     * column given for the board.
+     * @return the number of rows cleared on all the boards
+     * @throws IllegalArgumentException if the piece does not fit a board at
+     *         its column; the boards before are played
+     */
+    public int drop(Piece piece, int[] columns) {
+        int removed = 0;
+        for (int board = 0; board < boards; board++) {
+            removed += place(board, piece, columns[board]);
+        }
+        return removed;
+    }
+
+    /**
+     * Drop a piece on every board, with its leftmost column at the column
+     * given for the board.
+     * @return the number of rows cleared on all the boards
+     * @throws IllegalArgumentException if a piece does not fit its board at
+     *         its column; the boards before are played
+     */
+    public int drop(Piece[] pieces, int[] columns) {
+        int removed = 0;
+        for (int board = 0; board < boards; board++) {
+            removed += place(board, pieces[board], columns[board]);
+        }
+        return removed;
+    }
+
+    /**
+     * Drop the piece on one board, with its leftmost column at the given
+     * column, and clear the rows it fills.
+     * @return the number of rows cleared
+     * @throws IllegalArgumentException if the piece does not fit the board
+     *         at that column
+     */
+    public int drop(int board, Piece piece, int column) {
+        return place(board, piece, column);
+    }
+
+    // As SearchBoard.place, on the slices of the board
+    private int place(int board, Piece piece, int column) {
+        if (column < 0 || column + piece.width() > cols) {
+            throw new IllegalArgumentException("Shape " + piece.shapeType() + " at column " + column
+                    + " does not fit a " + cols + " columns board");
+        }
+        int heightBase = board * cols;
+        int landingRow = piece.landingRow(heights, heightBase + column);
+        int top = landingRow + piece.height();
+        reserve(top);
+        int height = stackHeights[board];
+        int removed = SearchBoard.place(rows, board * capacity, heights, heightBase, cols, height,
+                piece, column, landingRow);
+        stackHeights[board] = removed > 0 ? SearchBoard.stackHeight(heights, heightBase, cols)
+                : Math.max(height, top);
+        return removed;
+    }
+
+    // Grow the rows of every board to hold at least rowCount rows
+    private void reserve(int rowCount) {
+        if (rowCount <= capacity) {
+            return;
+        }
+        // Twice as many, or as many as fit if fewer
+        long newCapacity = Math.max(capacity * 2L, rowCount);
+        newCapacity = Math.max(Math.min(newCapacity, MAX_ARRAY_LENGTH / boards), rowCount);
+        long[] newRows = new long[arrayLength(boards, newCapacity)];
+        for (int board = 0; board < boards; board++) {
+            System.arraycopy(rows, board * capacity, newRows, board * (int) newCapacity, stackHeights[board]);
+        }
+        rows = newRows;
+        capacity = (int) newCapacity;
+    }
+
+    // The length of an array of perBoard items for each board
+    private static int arrayLength(int boards, long perBoard) {
+        long length = boards * perBoard;
+        if (length > MAX_ARRAY_LENGTH) {
+            throw new IllegalArgumentException(boards + " boards of " + perBoard + " rows or columns"
+                    + " do not fit in an array");
+        }
+        return (int) length;
+    }
+
+    /** Number of boards */
+    public int getBoards() {
+        return boards;
+    }
+
+    /** Number of columns of each board */
+    public int getCols() {
+        return cols;
+    }
+
+    /** The height of the stack of the board */
+    public int getHeight(int board) {
+        return stackHeights[board];
+    }
+
+    /** One above the topmost occupied cell of the column of the board, 0 if it is empty */
+    public int getColumnHeight(int board, int col) {
+        return heights[board * cols + col];
+    }
+
+    /** The cells of a row of the board, bit col set if the cell is occupied */
+    public long getRow(int board, int row) {
+        return row < stackHeights[board] ? rows[board * capacity + row] : 0L;
+    }
+}
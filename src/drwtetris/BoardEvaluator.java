@@ -0,0 +1,47 @@
+package drwtetris;
+
+/**
+ * A BoardEvaluator scores the boards reached by PlacementSearch: the higher
+ * the better. It is called concurrently, from every thread of the search,
+ * so it shall be thread-safe (stateless, typically) and shall not keep the
+ * board.
+ */
+@FunctionalInterface
+public interface BoardEvaluator {
+
+    /**
+     * The default evaluator: a weighted sum of the features of the board
+     * commonly used by Tetris players (weights tuned by a genetic algorithm
+     * for the standard 10 columns board).
+     */
+    BoardEvaluator DEFAULT = weighted(-0.510066, 0.760666, -0.35663, -0.184483);
+
+    /**
+     * Score the board, after all the pieces searched have been placed.
+     */
+    double evaluate(SearchBoard board);
+
+    /**
+     * An evaluator summing weighted features of the board.
+     * @param aggregateHeight - weight of the sum of the column heights
+     * @param linesCleared - weight of the rows cleared by the pieces placed
+     * @param holes - weight of the empty cells below the top of their column
+     * @param bumpiness - weight of the sum of the height differences of
+     *                  adjacent columns
+     */
+    static BoardEvaluator weighted(double aggregateHeight, double linesCleared, double holes, double bumpiness) {
+        return board -> {
+            int sum = 0;
+            int bumps = 0;
+            int previous = board.getColumnHeight(0);
+            for (int col = 0; col < board.getCols(); col++) {
+                int colHeight = board.getColumnHeight(col);
+                sum += colHeight;
+                bumps += Math.abs(colHeight - previous);
+                previous = colHeight;
+            }
+            return aggregateHeight * sum + linesCleared * board.getLinesCleared()
+                    + holes * (sum - board.getCells()) + bumpiness * bumps;
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package drwtetris;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The BufferedResultSink class writes the results as decimal text, one per
+ * line, to an OutputStream. The digits are written straight into a byte
+ * buffer, so no String is created per result, and the stream is only
+ * written once the buffer is full.
+ */
+public class BufferedResultSink implements ResultSink {
+    // == Define named constants ==
+    /** Size of the output buffer (in bytes) */
+    public final static int BUFFER_SIZE = 64 << 10;
+    // Longest result written: the digits of an int and the line terminator
+    final static int MAX_RESULT_LENGTH = 11;
+
+    // == Define BufferedResultSink's properties ==
+    private final OutputStream out;
+    private final boolean closeOut;
+    private final byte[] buf = new byte[BUFFER_SIZE];
+    private int count;
+
+    /**
+     * Constructor
+     * @param out - the stream written to
+     * @param closeOut - whether close() closes the stream, after flushing it
+     */
+    public BufferedResultSink(OutputStream out, boolean closeOut) {
+        this.out = out;
+        this.closeOut = closeOut;
+    }
+
+    @Override
+    public void accept(int height) {
+        if (count > BUFFER_SIZE - MAX_RESULT_LENGTH) {
+            flushBuffer();
+        }
+        count = put(buf, count, height);
+    }
+
+    /**
+     * Write a height as decimal text and a line terminator into buf, which
+     * shall have room for MAX_RESULT_LENGTH bytes from pos.
+     * @return the position after the line terminator
+     */
+    static int put(byte[] buf, int pos, int height) {
+        // Write the digits backwards from the end of the number
+        int end = pos + digits(height);
+        int digit = end;
+        do {
+            buf[--digit] = (byte) ('0' + height % 10);
+            height /= 10;
+        } while (height > 0);
+        buf[end] = '\n';
+        return end + 1;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        if (closeOut) {
+            out.close();
+        }
+    }
+
+    private void flushBuffer() {
+        try {
+            out.write(buf, 0, count);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        count = 0;
+    }
+
+    // Number of decimal digits of a height (never negative)
+    private static int digits(int height) {
+        int digits = 1;
+        while (height >= 10) {
+            height /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,288 @@
+package drwtetris;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * The CachedGame class plays the lines of an input file, reusing the work
+ * done for earlier lines that start with the same shapes.
+ *
+ * Snapshots of the Matrix are kept in a trie keyed by the shapes (tokens)
+ * of the line so far: every snapshotInterval shapes within a line, and at
+ * the end of every line, which may be the prefix of a later line (e.g. an
+ * input that grows one shape per line). A line is resumed from the
+ * snapshot of its longest cached prefix, and only the rest of it is
+ * played. The trie only holds the paths to the snapshots. The snapshots and trie nodes are
+ * bounded by maxBytes; the least recently used snapshot is evicted first,
+ * and a snapshot that alone would not fit in maxBytes is not taken at all.
+ */
+public class CachedGame {
+    // == Define named constants ==
+    /** Default bound of the memory held by the cache (in bytes) */
+    public final static long DEFAULT_MAX_BYTES = 64L << 20;
+    /** Default number of shapes between snapshots within a line */
+    public final static int DEFAULT_SNAPSHOT_INTERVAL = 64;
+
+    // Approximate memory held by a trie node and its array of children (in bytes)
+    private final static int NODE_BYTES = 80;
+    // A token packs the ShapeType ordinal (low bits) and the column of a shape
+    private final static int SHAPE_BITS = 3;
+    private final static int SHAPE_MASK = (1 << SHAPE_BITS) - 1;
+
+    // == Define CachedGame's properties ==
+    private final long maxBytes;
+    private final int snapshotInterval;
+    private final Matrix matrix;
+    // The trie root is the empty prefix (empty matrix), never evicted
+    private final Node root = new Node(null, 0);
+    // Least recently used list of the nodes holding a snapshot, most
+    //  recently used first
+    private Node lruHead, lruTail;
+    private long usedBytes;
+    // The tokens of the current line
+    private int[] tokens = new int[256];
+    private int tokenCount;
+    // Statistics
+    private long totalShapes, playedShapes;
+
+    /**
+     * Constructor, with the default memory bound and snapshot interval
+     */
+    public CachedGame() {
+        this(DEFAULT_MAX_BYTES, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Constructor
+     * @param maxBytes - bound of the memory held by the cache (in bytes)
+     * @param snapshotInterval - number of shapes between snapshots within a line
+     */
+    public CachedGame(long maxBytes, int snapshotInterval) {
+        this(maxBytes, snapshotInterval, Matrix.COLS);
+    }
+
+    /**
+     * Constructor
+     * @param maxBytes - bound of the memory held by the cache (in bytes)
+     * @param snapshotInterval - number of shapes between snapshots within a line
+     * @param cols - number of columns of the matrix
+     */
+    public CachedGame(long maxBytes, int snapshotInterval, int cols) {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("snapshotInterval must be positive: " + snapshotInterval);
+        }
+        this.maxBytes = maxBytes;
+        this.snapshotInterval = snapshotInterval;
+        this.matrix = new Matrix(cols);
+    }
+
+    /**
+     * Play every line of the given input file as a new game.
+     * @param results - receives the final stack height of each line, in order
+     */
+    public void newGame(Path path, IntConsumer results) throws IOException {
+        new InputParser(new InputParser.Listener() {
+            long line = 1;
+            final LineProbe probe = new LineProbe();
+
+            @Override
+            public void shape(int shapeIdx, int column) {
+                matrix.checkColumn(shapeIdx, column, line);
+                if (tokenCount == 0) {
+                    probe.start();
+                }
+                if (tokenCount == tokens.length) {
+                    tokens = Arrays.copyOf(tokens, tokenCount * 2);
+                }
+                tokens[tokenCount++] = token(shapeIdx, column);
+            }
+
+            @Override
+            public void endLine() {
+                int height = playLine();
+                probe.end(line++, tokenCount, height, matrix.peakHeight);
+                results.accept(height);
+                tokenCount = 0;
+            }
+        }).parseFile(path);
+    }
+
+    /** Number of shapes of all the lines played so far */
+    public long getTotalShapes() {
+        return totalShapes;
+    }
+
+    /** Number of shapes actually dropped on the matrix, the others were cached */
+    public long getPlayedShapes() {
+        return playedShapes;
+    }
+
+    /** Approximate memory held by the cache (in bytes) */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    // Play the current line, from the longest cached prefix.
+    // @return the final stack height
+    private int playLine() {
+        // Find the deepest snapshot along the line
+        Node node = root;
+        Node cached = root;
+        for (int i = 0; i < tokenCount; i++) {
+            node = node.child(tokens[i]);
+            if (node == null) {
+                break;
+            }
+            if (node.state != null) {
+                cached = node;
+            }
+        }
+
+        if (cached == root) {
+            matrix.clearMatrix();
+        } else {
+            matrix.restore(cached.state);
+            matrix.peakHeight = cached.peakHeight;  // of the whole prefix
+            touch(cached);
+        }
+
+        // Play the rest of the line, extending the trie along
+        node = cached;
+        for (int i = cached.depth; i < tokenCount; i++) {
+            int token = tokens[i];
+            matrix.addShapeToMatrix(token & SHAPE_MASK, token >>> SHAPE_BITS);
+            Node child = node.child(token);
+            node = child != null ? child : node.add(token);
+            if (node.state == null && ((i + 1) % snapshotInterval == 0 || i + 1 == tokenCount)) {
+                store(node);
+            }
+        }
+        // The nodes played past the last snapshot lead to none
+        prune(node);
+        totalShapes += tokenCount;
+        playedShapes += tokenCount - cached.depth;
+        return matrix.getHeight();
+    }
+
+    // Store a snapshot of the matrix at the given node, then evict the least
+    // recently used snapshots (but this one) until within maxBytes. A
+    // snapshot that, with the nodes leading to it, could not be kept within
+    // maxBytes is not taken.
+    private void store(Node node) {
+        long size = matrix.snapshotSize();
+        if (size + (long) node.depth * NODE_BYTES > maxBytes) {
+            return;
+        }
+        node.state = matrix.snapshot();
+        node.peakHeight = matrix.peakHeight;
+        usedBytes += size;
+        touch(node);
+        while (usedBytes > maxBytes && lruTail != node) {
+            evict(lruTail);
+        }
+    }
+
+    // Drop the snapshot of the node, and the trie nodes left useless.
+    private void evict(Node node) {
+        unlink(node);
+        usedBytes -= node.state.sizeInBytes();
+        node.state = null;
+        prune(node);
+    }
+
+    // Drop the node, and its ancestors, while they hold no snapshot and
+    // lead to none.
+    private void prune(Node node) {
+        while (node != root && node.state == null && node.childCount == 0) {
+            node.parent.removeChild(node);
+            node = node.parent;
+        }
+    }
+
+    // Make the node the most recently used
+    private void touch(Node node) {
+        if (lruHead != node) {
+            unlink(node);
+            node.next = lruHead;
+            if (lruHead != null) {
+                lruHead.prev = node;
+            }
+            lruHead = node;
+            if (lruTail == null) {
+                lruTail = node;
+            }
+        }
+    }
+
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else if (lruHead == node) {
+            lruHead = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else if (lruTail == node) {
+            lruTail = node.prev;
+        }
+        node.prev = node.next = null;
+    }
+
+    private static int token(int shapeIdx, int column) {
+        return column << SHAPE_BITS | shapeIdx;
+    }
+
+    // A node of the trie: the prefix made of the tokens from the root down
+    // to this node
+    private class Node {
+        final Node parent;
+        final int token;
+        final int depth;
+        Node[] children;
+        int childCount;
+        Matrix.State state;
+        // The peak stack height of the prefix, with the state
+        int peakHeight;
+        Node prev, next;
+
+        Node(Node parent, int token) {
+            this.parent = parent;
+            this.token = token;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+        }
+
+        Node child(int token) {
+            for (int i = 0; i < childCount; i++) {
+                if (children[i].token == token) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node add(int token) {
+            if (children == null) {
+                children = new Node[2];
+            } else if (childCount == children.length) {
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            Node child = new Node(this, token);
+            children[childCount++] = child;
+            usedBytes += NODE_BYTES;
+            return child;
+        }
+
+        void removeChild(Node child) {
+            for (int i = 0; i < childCount; i++) {
+                if (children[i] == child) {
+                    children[i] = children[--childCount];
+                    children[childCount] = null;
+                    usedBytes -= NODE_BYTES;
+                    return;
+                }
+            }
+        }
+    }
+}
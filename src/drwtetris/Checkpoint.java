@@ -0,0 +1,145 @@
+package drwtetris;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32C;
+
+/**
+ * A Checkpoint records a game stopped in the middle of an input file: the
+ * contents of the Matrix, the line being played and the number of its
+ * shapes already dropped, and the offset in the input of the next token.
+ * The game may be resumed from it, see Matrix.resumeGame(). The size and
+ * modification time of the input are recorded too, so that a checkpoint
+ * is not resumed on an input that has changed since.
+ *
+ * The binary form is compact: a versioned header, the skyline, and the
+ * rows bit-packed at cols bits per row (4 bytes for 3 rows of a 10 columns
+ * matrix), then a CRC-32C of the whole, so that a torn write is detected.
+ */
+public final class Checkpoint {
+    // == Define named constants ==
+    /** Default number of shapes between checkpoints */
+    public final static int DEFAULT_INTERVAL = 4096;
+    /** Version of the binary form written */
+    public final static short VERSION = 2;
+    // "DRWC"
+    private final static int MAGIC = 0x44525743;
+    // Magic, version, length, input size, input time, offset, line, shapes ... CRC
+    private final static int HEADER_SIZE = 4 + 2 + 4 + 8 + 8 + 8 + 8 + 4;
+    private final static int TRAILER_SIZE = 4;
+
+    // == Define Checkpoint's properties ==
+    // Size and modification time (in ms) of the input file
+    private final long inputSize;
+    private final long inputTime;
+    private final long offset;
+    private final long line;
+    private final int shapes;
+    private final Matrix.State state;
+
+    Checkpoint(long inputSize, long inputTime, long offset, long line, int shapes, Matrix.State state) {
+        this.inputSize = inputSize;
+        this.inputTime = inputTime;
+        this.offset = offset;
+        this.line = line;
+        this.shapes = shapes;
+        this.state = state;
+    }
+
+    /** Size of the input file (in bytes) */
+    public long getInputSize() {
+        return inputSize;
+    }
+
+    /** Modification time of the input file (in ms since the epoch) */
+    public long getInputTime() {
+        return inputTime;
+    }
+
+    /**
+     * Check that the input file is the one the checkpoint was taken on:
+     * its size and modification time have not changed.
+     * @throws IllegalArgumentException if they have
+     */
+    public void checkInput(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        if (attributes.size() != inputSize || attributes.lastModifiedTime().toMillis() != inputTime) {
+            throw new IllegalArgumentException("The checkpoint is for another input: " + path
+                    + " has changed since (" + inputSize + " bytes, modified at " + inputTime + " ms)");
+        }
+    }
+
+    /** Offset in the input file from which the game resumes */
+    public long getOffset() {
+        return offset;
+    }
+
+    /** The line being played (the first line is 1) */
+    public long getLine() {
+        return line;
+    }
+
+    /** Number of shapes of the line already dropped */
+    public int getShapes() {
+        return shapes;
+    }
+
+    /** The contents of the matrix */
+    public Matrix.State getState() {
+        return state;
+    }
+
+    /** Size of the binary form (in bytes) */
+    public int encodedSize() {
+        return HEADER_SIZE + state.encodedSize() + TRAILER_SIZE;
+    }
+
+    /**
+     * Write the binary form into buf, which shall have encodedSize() bytes
+     * remaining.
+     */
+    public void encode(ByteBuffer buf) {
+        int start = buf.position();
+        buf.putInt(MAGIC).putShort(VERSION).putInt(encodedSize())
+                .putLong(inputSize).putLong(inputTime).putLong(offset).putLong(line).putInt(shapes);
+        state.encode(buf);
+        buf.putInt(crc(buf, start, buf.position()));
+    }
+
+    /**
+     * Read the binary form from buf.
+     * @throws IllegalArgumentException if buf holds no valid checkpoint
+     */
+    public static Checkpoint decode(ByteBuffer buf) {
+        int start = buf.position();
+        if (buf.remaining() < HEADER_SIZE + TRAILER_SIZE || buf.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a checkpoint");
+        }
+        short version = buf.getShort();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported checkpoint version " + version);
+        }
+        int length = buf.getInt();
+        if (length < HEADER_SIZE + TRAILER_SIZE || length > buf.limit() - start
+                || buf.getInt(start + length - TRAILER_SIZE) != crc(buf, start, start + length - TRAILER_SIZE)) {
+            throw new IllegalArgumentException("Corrupt checkpoint");
+        }
+        long inputSize = buf.getLong();
+        long inputTime = buf.getLong();
+        long offset = buf.getLong();
+        long line = buf.getLong();
+        int shapes = buf.getInt();
+        Matrix.State state = Matrix.State.decode(buf);
+        buf.position(start + length);
+        return new Checkpoint(inputSize, inputTime, offset, line, shapes, state);
+    }
+
+    private static int crc(ByteBuffer buf, int from, int to) {
+        CRC32C crc = new CRC32C();
+        crc.update(buf.duplicate().limit(to).position(from));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,106 @@
+package drwtetris;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The CheckpointStore class keeps the last Checkpoint of a game in a file,
+ * so that the game can be resumed after the process is stopped.
+ *
+ * Checkpoints are written in turn to two files, path.0 and path.1, each
+ * overwritten in place by a single write: while one is being written, the
+ * other still holds the previous checkpoint. A torn checkpoint fails its
+ * CRC and the other file is used. Writes are not forced to the device, so
+ * a checkpoint outlives the process, not the machine.
+ */
+public class CheckpointStore implements Closeable {
+    // == Define CheckpointStore's properties ==
+    private final Path[] paths;
+    private final FileChannel[] channels = new FileChannel[2];
+    // The file written next: the one not holding the latest checkpoint
+    private int next;
+    private ByteBuffer buf = ByteBuffer.allocate(4096);
+
+    /**
+     * Constructor
+     * @param path - the base path of the two checkpoint files
+     */
+    public CheckpointStore(Path path) {
+        this.paths = new Path[] {
+                path.resolveSibling(path.getFileName() + ".0"),
+                path.resolveSibling(path.getFileName() + ".1")
+        };
+    }
+
+    /**
+     * Read the latest valid checkpoint.
+     * @return the checkpoint, null if there is none
+     */
+    public Checkpoint load() throws IOException {
+        Checkpoint latest = null;
+        for (int i = 0; i < paths.length; i++) {
+            if (!Files.exists(paths[i])) {
+                continue;
+            }
+            Checkpoint checkpoint;
+            try {
+                checkpoint = Checkpoint.decode(ByteBuffer.wrap(Files.readAllBytes(paths[i])));
+            } catch (RuntimeException e) {
+                continue;  // torn or foreign file: the other one is the latest
+            }
+            // The game moves forward in the input
+            if (latest == null || checkpoint.getOffset() > latest.getOffset()) {
+                latest = checkpoint;
+                next = 1 - i;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Write a checkpoint, replacing the previous one once written.
+     */
+    public void save(Checkpoint checkpoint) throws IOException {
+        int size = checkpoint.encodedSize();
+        if (buf.capacity() < size) {
+            buf = ByteBuffer.allocate(Math.max(buf.capacity() * 2, size));
+        }
+        buf.clear();
+        checkpoint.encode(buf);
+        buf.flip();
+        if (channels[next] == null) {
+            channels[next] = FileChannel.open(paths[next],
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+        long position = 0;
+        while (buf.hasRemaining()) {
+            position += channels[next].write(buf, position);
+        }
+        next = 1 - next;
+    }
+
+    /**
+     * Delete the checkpoint files, once the game is over.
+     */
+    public void delete() throws IOException {
+        close();
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (int i = 0; i < channels.length; i++) {
+            if (channels[i] != null) {
+                channels[i].close();
+                channels[i] = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package drwtetris;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * The DiffHarness class plays an input file on the reference engine, the
+ * Matrix, then on other engines, and checks that they report the same
+ * height for every line; it reports the speed and the peak heap of each.
+ * Together with WorkloadGenerator, it checks a change to an engine on any
+ * workload before it is shipped.
+ *
+ * The engines cover every way a game is played: the Matrix from a file,
+ * from a stream (GamePipeline), split across threads (ParallelGame), from a
+ * cache (CachedGame), with checkpoints, shape by shape (GameSession), and on
+ * a BoardArena; NaiveGame, a plain grid of booleans, checks the Matrix
+ * itself on small inputs.
+ *
+ * The heights of the reference are kept in a temporary file, so an input of
+ * any size is checked in constant memory.
+ *
+ * Usage: DiffHarness [-w cols] [-r runs] input [engine...]
+ *   -w cols   number of columns of the matrix (10 by default)
+ *   -r runs   play the input this many times on each engine, and report
+ *             the fastest (1 by default); the first runs warm up the JIT
+ *   engine    the engines checked, among ENGINES (all by default)
+ *
+ * Exits with status 1 if any engine differs from the reference, or fails.
+ */
+public class DiffHarness {
+    // == Define named constants ==
+    /** The engine the others are checked against */
+    public final static String REFERENCE = "matrix";
+    private final static int BUFFER_SIZE = 1 << 16;
+    private final static Shape.ShapeType[] SHAPE_TYPES = Shape.ShapeType.values();
+
+    /**
+     * An engine: plays every line of an input file as a new game, and
+     * reports the height of each line in order.
+     */
+    @FunctionalInterface
+    public interface Engine {
+        void play(Path input, int cols, IntConsumer results) throws IOException;
+    }
+
+    /** The engines known by name, the reference first */
+    public final static Map<String, Engine> ENGINES = new LinkedHashMap<>();
+    static {
+        ENGINES.put(REFERENCE, (input, cols, results) -> new Matrix(cols).newGame(input, results));
+        ENGINES.put("naive", (input, cols, results) -> new NaiveGame(cols).newGame(input, results));
+        ENGINES.put("parallel", (input, cols, results) ->
+                new ParallelGame(ForkJoinPool.commonPool(), cols).newGame(input, results));
+        ENGINES.put("cached", (input, cols, results) ->
+                new CachedGame(CachedGame.DEFAULT_MAX_BYTES, CachedGame.DEFAULT_SNAPSHOT_INTERVAL, cols)
+                        .newGame(input, results));
+        ENGINES.put("checkpointed", (input, cols, results) ->
+                new Matrix(cols).newGame(input, results, Checkpoint.DEFAULT_INTERVAL, checkpoint -> { }));
+        ENGINES.put("pipeline", (input, cols, results) -> {
+            try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+                new GamePipeline(new Matrix(cols)).run(channel, toSink(results));
+            }
+        });
+        ENGINES.put("session", DiffHarness::playSession);
+        ENGINES.put("arena", DiffHarness::playArena);
+    }
+
+    // Play each line on a GameSession, shape by shape
+    private static void playSession(Path input, int cols, IntConsumer results) throws IOException {
+        GameSession session = new GameSession(cols);
+        new InputParser(new InputParser.Listener() {
+            @Override
+            public void shape(int shapeIdx, int column) {
+                session.drop(SHAPE_TYPES[shapeIdx], column);
+            }
+
+            @Override
+            public void endLine() {
+                results.accept(session.getHeight());
+                session.reset();
+            }
+        }).parseFile(input);
+    }
+
+    // Play each line on a BoardArena of one board
+    private static void playArena(Path input, int cols, IntConsumer results) throws IOException {
+        BoardArena arena = new BoardArena(1, cols);
+        new InputParser(new InputParser.Listener() {
+            @Override
+            public void shape(int shapeIdx, int column) {
+                arena.drop(0, Piece.of(shapeIdx), column);
+            }
+
+            @Override
+            public void endLine() {
+                results.accept(arena.getHeight(0));
+                arena.clear();
+            }
+        }).parseFile(input);
+    }
+
+    // A ResultSink handing the results over to the consumer
+    private static ResultSink toSink(IntConsumer results) {
+        return new ResultSink() {
+            @Override
+            public void accept(int height) {
+                results.accept(height);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    // == Define DiffHarness's properties ==
+    private final int cols;
+    private final int runs;
+    private final PrintStream report;
+
+    /**
+     * Constructor
+     * @param cols - number of columns of the matrix
+     * @param runs - times each engine plays the input, the fastest reported
+     * @param report - the stream the results are printed to
+     */
+    public DiffHarness(int cols, int runs, PrintStream report) {
+        this.cols = cols;
+        this.runs = runs;
+        this.report = report;
+    }
+
+    /**
+     * Play the input on the reference engine, then on each of the given
+     * engines, and report how they compare.
+     * @return the number of engines that differ from the reference
+     */
+    public int run(Path input, List<String> engines) throws IOException {
+        long shapes = countShapes(input);
+        long bytes = Files.size(input);
+        report.printf("%s: %d bytes, %d shapes, %d columns%n", input, bytes, shapes, cols);
+
+        Path expected = Files.createTempFile("drwtetris-heights", ".bin");
+        try {
+            // The reference, the heights of its first run kept for the others
+            Run reference;
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(expected), BUFFER_SIZE))) {
+                IntConsumer keep = height -> {
+                    try {
+                        out.writeInt(height);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                };
+                boolean[] kept = new boolean[1];
+                reference = measure(ENGINES.get(REFERENCE), input, () -> {
+                    if (kept[0]) {
+                        return height -> { };
+                    }
+                    kept[0] = true;
+                    return keep;
+                });
+            }
+            print(REFERENCE, reference, shapes, bytes, "reference");
+
+            int failed = 0;
+            for (String name : engines) {
+                if (name.equals(REFERENCE)) {
+                    continue;
+                }
+                Engine engine = ENGINES.get(name);
+                if (engine == null) {
+                    throw new IllegalArgumentException("Unknown engine: " + name + ", one of " + ENGINES.keySet());
+                }
+                Diff diff = new Diff(expected, reference.lines);
+                Run run;
+                try {
+                    run = measure(engine, input, () -> {
+                        diff.reset();
+                        return diff;
+                    });
+                } catch (RuntimeException e) {
+                    // e.g. an arena wider than a word
+                    failed++;
+                    report.printf("%-14s FAILED: %s%n", name, e);
+                    continue;
+                } finally {
+                    diff.close();
+                }
+                String verdict = diff.verdict();
+                if (diff.firstLine != 0 || diff.lines != reference.lines) {
+                    failed++;
+                }
+                print(name, run, shapes, bytes, verdict);
+            }
+            return failed;
+        } finally {
+            Files.deleteIfExists(expected);
+        }
+    }
+
+    // Play the input runs times on the engine, each with the consumer given
+    //  by the supplier; keep the fastest run and the highest peak heap
+    private Run measure(Engine engine, Path input, Supplier<IntConsumer> results)
+            throws IOException {
+        Run best = new Run();
+        best.nanos = Long.MAX_VALUE;
+        List<MemoryPoolMXBean> heap = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heap.add(pool);
+            }
+        }
+        for (int run = 0; run < runs; run++) {
+            System.gc();
+            for (MemoryPoolMXBean pool : heap) {
+                pool.resetPeakUsage();
+            }
+            IntConsumer consumer = results.get();
+            long[] lines = new long[1];
+            long start = System.nanoTime();
+            engine.play(input, cols, height -> {
+                lines[0]++;
+                consumer.accept(height);
+            });
+            long nanos = System.nanoTime() - start;
+            long peak = 0;
+            for (MemoryPoolMXBean pool : heap) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+            best.nanos = Math.min(best.nanos, nanos);
+            best.peakHeap = Math.max(best.peakHeap, peak);
+            best.lines = lines[0];
+        }
+        return best;
+    }
+
+    private void print(String name, Run run, long shapes, long bytes, String verdict) {
+        double seconds = run.nanos / 1e9;
+        report.printf("%-14s %10d lines %8.3f s %12.0f shapes/s %8.1f MB/s %8.1f MB peak heap  %s%n",
+                name, run.lines, seconds, shapes / seconds, bytes / seconds / (1 << 20),
+                run.peakHeap / (double) (1 << 20), verdict);
+    }
+
+    /**
+     * Count the shapes of an input file: one letter per shape.
+     */
+    static long countShapes(Path input) throws IOException {
+        long shapes = 0;
+        ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            while (channel.read(buf) > 0) {
+                buf.flip();
+                while (buf.hasRemaining()) {
+                    byte b = buf.get();
+                    if (b >= 'A' && b <= 'Z') {
+                        shapes++;
+                    }
+                }
+                buf.clear();
+            }
+        }
+        return shapes;
+    }
+
+    // The speed and memory of an engine on the input
+    private static class Run {
+        long nanos;
+        long peakHeap;
+        long lines;
+    }
+
+    // Compares the heights of an engine with those of the reference, read
+    //  back from the file they were kept in
+    private static class Diff implements IntConsumer {
+        final Path expected;
+        final long expectedLines;
+        DataInputStream in;
+        long lines;
+        // The first line that differs (1-based), 0 if none does
+        long firstLine;
+        int expectedHeight, actualHeight;
+        long differing;
+
+        Diff(Path expected, long expectedLines) {
+            this.expected = expected;
+            this.expectedLines = expectedLines;
+        }
+
+        void reset() {
+            close();
+            try {
+                in = new DataInputStream(new BufferedInputStream(Files.newInputStream(expected), BUFFER_SIZE));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            lines = 0;
+            firstLine = 0;
+            differing = 0;
+        }
+
+        @Override
+        public void accept(int height) {
+            lines++;
+            int expect = -1;
+            if (lines <= expectedLines) {
+                try {
+                    expect = in.readInt();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (height != expect) {
+                differing++;
+                if (firstLine == 0) {
+                    firstLine = lines;
+                    expectedHeight = expect;
+                    actualHeight = height;
+                }
+            }
+        }
+
+        String verdict() {
+            if (firstLine != 0) {
+                return String.format("DIFFERS on %d lines, first line %d: %s expected, %d reported",
+                        differing, firstLine, expectedHeight < 0 ? "none" : Integer.toString(expectedHeight),
+                        actualHeight);
+            }
+            if (lines != expectedLines) {
+                return "DIFFERS: " + lines + " lines reported, " + expectedLines + " expected";
+            }
+            return "MATCH";
+        }
+
+        void close() {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // closing anyway
+                }
+                in = null;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int cols = Matrix.COLS;
+        int runs = 1;
+        String input = null;
+        List<String> engines = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-w":
+                    cols = Integer.parseInt(args[++i]);
+                    break;
+                case "-r":
+                    runs = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    if (input == null) {
+                        input = args[i];
+                    } else {
+                        engines.add(args[i]);
+                    }
+                    break;
+            }
+        }
+        if (input == null) {
+            System.err.println("Usage: DiffHarness [-w cols] [-r runs] input [engine...], engines: "
+                    + ENGINES.keySet());
+            System.exit(2);
+        }
+        if (engines.isEmpty()) {
+            engines.addAll(ENGINES.keySet());
+        }
+        int failed = new DiffHarness(cols, runs, System.out).run(Path.of(input), engines);
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package drwtetris;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The GameMetrics class aggregates metrics of all the games played in the
+ * JVM: lines, shapes, rows cleared, highest stack, shapes per second and a
+ * histogram of the time taken per line.
+ *
+ * Metrics are off unless the system property drwtetris.metrics is true.
+ * ENABLED is a constant, so while they are off the JIT removes every
+ * metrics update from the hot paths. When on, the metrics are also
+ * registered with the platform MBean server as OBJECT_NAME.
+ * Updates are safe from any number of threads.
+ */
+public class GameMetrics implements GameMetricsMXBean {
+    // == Define named constants ==
+    /** The system property switching the metrics on */
+    public final static String PROPERTY = "drwtetris.metrics";
+    /** Whether the metrics are collected */
+    public final static boolean ENABLED = Boolean.getBoolean(PROPERTY);
+    /** The JMX name of the metrics */
+    public final static String OBJECT_NAME = "drwtetris:type=GameMetrics";
+
+    private final static int LATENCY_BUCKETS = 64;
+
+    private static final GameMetrics metrics = new GameMetrics();
+    static {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    // == Define GameMetrics's properties ==
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder shapes = new LongAdder();
+    private final LongAdder rowsCleared = new LongAdder();
+    private final LongAccumulator maxHeight = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] lineLatency = new LongAdder[LATENCY_BUCKETS];
+    private volatile long startNanos = System.nanoTime();
+
+    // Private constructor, get the instance via GameMetrics.get()
+    private GameMetrics() {
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            lineLatency[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Get the metrics of the JVM.
+     */
+    public static GameMetrics get() {
+        return metrics;
+    }
+
+    /**
+     * Record a line played.
+     * @param shapes - number of shapes of the line
+     * @param peakHeight - highest stack reached during the line
+     * @param nanos - time taken to play the line
+     */
+    void line(int shapes, int peakHeight, long nanos) {
+        this.lines.increment();
+        this.shapes.add(shapes);
+        this.maxHeight.accumulate(peakHeight);
+        lineLatency[63 - Long.numberOfLeadingZeros(Math.max(nanos, 1))].increment();
+    }
+
+    /**
+     * Record filled rows removed.
+     */
+    void rowsCleared(int rows) {
+        rowsCleared.add(rows);
+    }
+
+    @Override
+    public long getLines() {
+        return lines.sum();
+    }
+
+    @Override
+    public long getShapes() {
+        return shapes.sum();
+    }
+
+    @Override
+    public long getRowsCleared() {
+        return rowsCleared.sum();
+    }
+
+    @Override
+    public int getMaxHeight() {
+        return (int) maxHeight.get();
+    }
+
+    @Override
+    public double getShapesPerSecond() {
+        long nanos = System.nanoTime() - startNanos;
+        return nanos > 0 ? getShapes() * 1e9 / nanos : 0;
+    }
+
+    @Override
+    public long getLineLatencyPercentile(double p) {
+        long[] histogram = getLineLatencyHistogram();
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        long rank = (long) Math.ceil(total * p / 100);
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen >= rank && seen > 0) {
+                return (2L << i) - 1;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public long[] getLineLatencyHistogram() {
+        long[] histogram = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            histogram[i] = lineLatency[i].sum();
+        }
+        return histogram;
+    }
+
+    @Override
+    public void reset() {
+        lines.reset();
+        shapes.reset();
+        rowsCleared.reset();
+        maxHeight.reset();
+        for (LongAdder bucket : lineLatency) {
+            bucket.reset();
+        }
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Print a summary of the metrics.
+     */
+    public void report(PrintStream out) {
+        out.printf("lines %d, shapes %d, rows cleared %d, max height %d%n",
+                getLines(), getShapes(), getRowsCleared(), getMaxHeight());
+        out.printf("%.0f shapes/s, line latency p50 %d ns, p99 %d ns, max %d ns%n",
+                getShapesPerSecond(), getLineLatencyPercentile(50), getLineLatencyPercentile(99),
+                getLineLatencyPercentile(100));
+    }
+}
@@ -0,0 +1,30 @@
+package drwtetris;
+
+/**
+ * JMX view of the GameMetrics, registered as GameMetrics.OBJECT_NAME.
+ */
+public interface GameMetricsMXBean {
+    /** Number of lines (games) played */
+    long getLines();
+
+    /** Number of shapes dropped */
+    long getShapes();
+
+    /** Number of filled rows removed */
+    long getRowsCleared();
+
+    /** Highest stack reached by any line */
+    int getMaxHeight();
+
+    /** Shapes dropped per second of wall-clock time since the metrics were reset */
+    double getShapesPerSecond();
+
+    /** Line latency percentile (p in [0, 100]), as the upper bound of its histogram bucket (in ns) */
+    long getLineLatencyPercentile(double p);
+
+    /** Line latency histogram: entry i counts the lines that took [2^i, 2^(i+1)) ns */
+    long[] getLineLatencyHistogram();
+
+    /** Reset all the metrics */
+    void reset();
+}
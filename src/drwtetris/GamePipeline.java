@@ -0,0 +1,315 @@
+package drwtetris;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The GamePipeline class plays a stream of input of any length, e.g. the
+ * standard input or a pipe, which unlike a file cannot be memory-mapped.
+ * Reading, decoding, playing and writing the results each run on a thread
+ * of their own, so waiting for input or output overlaps with playing:
+ *
+ *   reader -> parser -> simulator -> writer
+ *
+ * The stages hand over batches to each other: buffers of input bytes, then
+ * batches of shapes (shape and column, or the end of a line), then batches
+ * of results. Each link between two stages holds a fixed number of
+ * batches, that are passed back once used: a stage that runs ahead waits
+ * for a free batch, so a slow consumer holds back the stages before it and
+ * the memory used is the same whatever the length of the input.
+ *
+ * A batch is handed over once full, or as soon as the next stage has
+ * nothing left to do, so the results of a slow stream come out as its lines
+ * come in.
+ */
+public class GamePipeline {
+    // == Define named constants ==
+    /** Size of the buffers the input is read into (in bytes) */
+    public final static int READ_BUFFER_SIZE = 256 << 10;
+    /** Number of shapes, or of results, per batch */
+    public final static int BATCH_SIZE = 16 << 10;
+    /** Number of batches of each link between two stages */
+    public final static int BATCHES = 4;
+    // The end of a line, in a batch of shapes
+    private final static int END_LINE = -1;
+
+    // == Define GamePipeline's properties ==
+    private final Matrix matrix;
+    // The first failure of a stage, which stops the others
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    // A malformed input, thrown once the lines before it are played
+    private final AtomicReference<RuntimeException> badInput = new AtomicReference<>();
+    private Thread[] stages;
+    private volatile long lines;
+
+    /**
+     * Constructor
+     * @param matrix - the matrix the games are played on
+     */
+    public GamePipeline(Matrix matrix) {
+        this.matrix = matrix;
+    }
+
+    /**
+     * Play every line of the input as a new game, until its end.
+     * @param results - receives the final stack height of each line, in
+     *                order, on the writer thread; it is flushed whenever
+     *                the writer has caught up with the input
+     * @throws IllegalArgumentException if the input is malformed, once the
+     *                lines before the first malformed one are played; the
+     *                rest of the input is not read
+     */
+    public void run(ReadableByteChannel input, ResultSink results) throws IOException {
+        Link<ByteBuffer> bytes = new Link<>();
+        Link<Batch> shapes = new Link<>();
+        Link<Batch> heights = new Link<>();
+        for (int i = 0; i < BATCHES; i++) {
+            bytes.free.add(ByteBuffer.allocateDirect(READ_BUFFER_SIZE));
+            shapes.free.add(new Batch());
+            heights.free.add(new Batch());
+        }
+        lines = 0;
+        failure.set(null);
+        badInput.set(null);
+        stages = new Thread[] {
+                stage("reader", () -> read(input, bytes)),
+                stage("parser", () -> parse(bytes, shapes)),
+                stage("simulator", () -> simulate(shapes, heights)),
+                stage("writer", () -> write(heights, results))
+        };
+        for (Thread stage : stages) {
+            stage.start();
+        }
+        try {
+            for (Thread stage : stages) {
+                stage.join();
+            }
+        } catch (InterruptedException e) {
+            stop(e);
+            Thread.currentThread().interrupt();
+        }
+
+        Throwable e = failure.get();
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        } else if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        } else if (e != null) {
+            throw new RuntimeException(e);
+        } else if (badInput.get() != null) {
+            throw badInput.get();
+        }
+    }
+
+    /**
+     * Number of lines played so far.
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    // == The stages ==
+
+    private void read(ReadableByteChannel input, Link<ByteBuffer> bytes) throws Exception {
+        while (true) {
+            ByteBuffer buf = bytes.free.take();
+            buf.clear();
+            int n = input.read(buf);
+            buf.flip();
+            if (n < 0) {
+                bytes.full.put(buf);  // empty: the end of the input
+                return;
+            }
+            if (n > 0) {
+                bytes.full.put(buf);
+            } else {
+                bytes.free.put(buf);
+            }
+        }
+    }
+
+    private void parse(Link<ByteBuffer> bytes, Link<Batch> shapes) throws Exception {
+        Batch[] batch = { shapes.free.take() };
+        InputParser parser = new InputParser(new InputParser.Listener() {
+            @Override
+            public void shape(int shapeIdx, int column) {
+                add(column << 3 | shapeIdx);
+            }
+
+            @Override
+            public void endLine() {
+                add(END_LINE);
+            }
+
+            private void add(int token) {
+                if (batch[0].size == BATCH_SIZE) {
+                    try {
+                        batch[0] = shapes.handOver(batch[0]);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                batch[0].values[batch[0].size++] = token;
+            }
+        });
+        while (true) {
+            ByteBuffer buf = bytes.full.take();
+            try {
+                if (!buf.hasRemaining()) {
+                    parser.finish();
+                    batch[0].last = true;
+                    shapes.full.put(batch[0]);
+                    return;
+                }
+                parser.parse(buf);
+            } catch (IllegalArgumentException e) {
+                // The lines before are still played, as newGame() does; a
+                //  bad column found by the simulator is on an earlier line
+                badInput.compareAndSet(null, e);
+                bytes.free.put(buf);
+                stages[0].interrupt();  // stop reading
+                batch[0].last = true;
+                shapes.full.put(batch[0]);
+                return;
+            }
+            bytes.free.put(buf);
+            if (batch[0].size > 0 && bytes.full.isEmpty()) {
+                // Nothing more read yet: let the simulator go on
+                batch[0] = shapes.handOver(batch[0]);
+            }
+        }
+    }
+
+    private void simulate(Link<Batch> shapes, Link<Batch> heights) throws Exception {
+        Batch[] batch = { heights.free.take() };
+        InputParser.Listener player = matrix.newPlayer(height -> {
+            if (batch[0].size == BATCH_SIZE) {
+                try {
+                    batch[0] = heights.handOver(batch[0]);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            batch[0].values[batch[0].size++] = height;
+            lines++;
+        });
+        try {
+            while (true) {
+                Batch in = shapes.full.take();
+                try {
+                    for (int i = 0; i < in.size; i++) {
+                        int token = in.values[i];
+                        if (token == END_LINE) {
+                            player.endLine();
+                        } else {
+                            player.shape(token & 7, token >>> 3);
+                        }
+                    }
+                } catch (IllegalArgumentException e) {
+                    // A column out of the matrix: the lines before are still
+                    //  written, and the stages before stop
+                    badInput.set(e);
+                    stages[0].interrupt();
+                    stages[1].interrupt();
+                    in.last = true;
+                }
+                if (in.last) {
+                    batch[0].last = true;
+                    heights.full.put(batch[0]);
+                    return;
+                }
+                in.size = 0;
+                shapes.free.put(in);
+                if (batch[0].size > 0 && shapes.full.isEmpty()) {
+                    batch[0] = heights.handOver(batch[0]);
+                }
+            }
+        } finally {
+            // A line cut short is left on the matrix
+            matrix.clearMatrix();
+        }
+    }
+
+    private void write(Link<Batch> heights, ResultSink results) throws Exception {
+        while (true) {
+            Batch in = heights.full.take();
+            for (int i = 0; i < in.size; i++) {
+                results.accept(in.values[i]);
+            }
+            if (in.last) {
+                results.flush();
+                return;
+            }
+            in.size = 0;
+            heights.free.put(in);
+            if (heights.full.isEmpty()) {
+                results.flush();
+            }
+        }
+    }
+
+    // == Plumbing ==
+
+    // A stage running on its own thread; its failure stops the others
+    private Thread stage(String name, Stage body) {
+        Thread thread = new Thread(() -> {
+            try {
+                body.run();
+            } catch (InterruptedException e) {
+                // Stopped by the failure of another stage, or by a bad input
+            } catch (Throwable e) {
+                if (badInput.get() == null || !interrupted(e)) {
+                    stop(e);
+                }
+            }
+        }, "GamePipeline-" + name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private void stop(Throwable e) {
+        if (failure.compareAndSet(null, e)) {
+            for (Thread stage : stages) {
+                stage.interrupt();
+            }
+        }
+    }
+
+    // Whether a stage failed only because it was interrupted
+    private static boolean interrupted(Throwable e) {
+        return e instanceof ClosedByInterruptException || e.getCause() instanceof InterruptedException;
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    // The batches between two stages: full ones on their way to the next
+    //  stage, free ones back to the previous stage
+    private static class Link<T> {
+        final BlockingQueue<T> full = new ArrayBlockingQueue<>(BATCHES);
+        final BlockingQueue<T> free = new ArrayBlockingQueue<>(BATCHES);
+
+        // Hand over a full batch, and take a free one to go on with
+        T handOver(T batch) throws InterruptedException {
+            full.put(batch);
+            return free.take();
+        }
+    }
+
+    // A batch of shapes, or of results; emptied before it is passed back
+    private static class Batch {
+        final int[] values = new int[BATCH_SIZE];
+        int size;
+        // Whether this is the last batch of the input
+        boolean last;
+    }
+}
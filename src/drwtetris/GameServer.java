@@ -0,0 +1,320 @@
+package drwtetris;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The GameServer class plays games for local clients over a TCP or Unix
+ * domain socket, so that the JVM start-up and JIT warm-up are paid once
+ * rather than for every batch of games.
+ *
+ * The protocol is the input file format: a client writes lines of shapes,
+ * e.g. "Q0,I2,T4", and reads back the final stack height of each line, one
+ * per line, in order. Requests may be pipelined: a client may write any
+ * number of lines before reading the results. A malformed line is answered
+ * with "ERR message" and the connection is closed.
+ *
+ * Connections are spread over a few event loops, each a thread with its own
+ * Selector. A connection plays its lines on a Matrix of its loop; the
+ * matrices are kept for the next connections once theirs are closed.
+ */
+public class GameServer implements Closeable {
+    // == Define named constants ==
+    /** Default TCP port, on the loopback address */
+    public final static int DEFAULT_PORT = 7340;
+    /** Size of the read buffer of a connection (in bytes) */
+    public final static int BUFFER_SIZE = 16 << 10;
+    // A connection is not read while this much of its output is pending, so
+    //  a client that writes without reading cannot grow it without bound
+    private final static int MAX_PENDING_OUTPUT = 256 << 10;
+
+    // == Define GameServer's properties ==
+    private final ServerSocketChannel server;
+    // The path of the Unix domain socket, deleted on close; null for TCP
+    private final Path socketPath;
+    private final int cols;
+    private final EventLoop[] loops;
+    private volatile boolean closed;
+
+    /**
+     * Constructor: bind the server, and start its event loops. Connections
+     * are only accepted once serve() is called.
+     * @param address - the InetSocketAddress or UnixDomainSocketAddress to listen on
+     * @param loopCount - number of event loops (threads playing the games)
+     * @param cols - number of columns of the matrices
+     */
+    public GameServer(SocketAddress address, int loopCount, int cols) throws IOException {
+        if (address instanceof UnixDomainSocketAddress) {
+            this.socketPath = ((UnixDomainSocketAddress) address).getPath();
+            this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            this.socketPath = null;
+            this.server = ServerSocketChannel.open();
+            this.server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        }
+        this.server.bind(address);
+        this.cols = cols;
+        this.loops = new EventLoop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new EventLoop(i);
+            loops[i].start();
+        }
+    }
+
+    /**
+     * Parse a server address: a port number (on the loopback address),
+     * host:port, or the path of a Unix domain socket (containing a '/').
+     */
+    public static SocketAddress parseAddress(String address) {
+        if (address.indexOf('/') >= 0) {
+            return UnixDomainSocketAddress.of(address);
+        }
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address));
+        }
+        return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+    }
+
+    /**
+     * The address the server listens on.
+     */
+    public SocketAddress getAddress() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    /**
+     * Accept connections, handing them to the event loops in turn, until the
+     * server is closed.
+     */
+    public void serve() throws IOException {
+        int next = 0;
+        while (!closed) {
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (AsynchronousCloseException e) {
+                break;  // closed
+            }
+            channel.configureBlocking(false);
+            if (socketPath == null) {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+            loops[next].add(channel);
+            next = (next + 1) % loops.length;
+        }
+    }
+
+    /**
+     * Stop accepting connections, and close the open ones.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        for (EventLoop loop : loops) {
+            if (loop == Thread.currentThread()) {
+                continue;  // closing after its own failure
+            }
+            try {
+                loop.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (socketPath != null) {
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    // A thread serving its connections through a Selector
+    private class EventLoop extends Thread {
+        final Selector selector;
+        // Connections accepted, to be registered by this thread
+        final Queue<SocketChannel> added = new ConcurrentLinkedQueue<>();
+        // Matrices of the connections closed, kept warm for the next ones
+        final ArrayDeque<Matrix> idle = new ArrayDeque<>();
+
+        EventLoop(int index) throws IOException {
+            super("GameServer-" + index);
+            this.selector = Selector.open();
+        }
+
+        void add(SocketChannel channel) {
+            added.add(channel);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            boolean failed = false;
+            try {
+                while (!closed) {
+                    selector.select();
+                    SocketChannel channel;
+                    while ((channel = added.poll()) != null) {
+                        Matrix matrix = idle.isEmpty() ? new Matrix(cols) : idle.pop();
+                        Connection connection = new Connection(this, channel, matrix);
+                        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        ((Connection) key.attachment()).ready();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                if (!closed) {
+                    // A server missing a loop would leave some clients hanging
+                    System.err.println(getName() + " failed, closing the server: " + e);
+                    e.printStackTrace();
+                    failed = true;
+                }
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    ((Connection) key.attachment()).close();
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    // closing anyway
+                }
+            }
+            if (failed) {
+                try {
+                    close();
+                } catch (IOException e) {
+                    // closing anyway
+                }
+            }
+        }
+    }
+
+    // A client connection: its input is parsed and played as it is read, and
+    //  the results are buffered until the channel can take them.
+    private static class Connection {
+        final EventLoop loop;
+        final SocketChannel channel;
+        final Matrix matrix;
+        final InputParser parser;
+        final ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+        SelectionKey key;
+        // Whether to close once the pending output is written: at the end of
+        //  the input, or after an error
+        boolean closing;
+
+        Connection(EventLoop loop, SocketChannel channel, Matrix matrix) {
+            this.loop = loop;
+            this.channel = channel;
+            this.matrix = matrix;
+            this.parser = matrix.newParser(this::result);
+        }
+
+        void ready() {
+            try {
+                if (key.isReadable()) {
+                    read();
+                }
+                write();
+            } catch (IOException e) {
+                close();  // the client is gone
+            }
+        }
+
+        private void read() throws IOException {
+            int n = channel.read(in);
+            in.flip();
+            try {
+                parser.parse(in);
+                if (n < 0) {
+                    parser.finish();
+                    closing = true;
+                }
+            } catch (IllegalArgumentException e) {
+                // Bad shape or column: report it, the rest of the input is lost
+                String reason = e.getMessage();
+                reply("ERR " + Character.toLowerCase(reason.charAt(0)) + reason.substring(1));
+            } catch (RuntimeException e) {
+                // Not the client's fault: keep the details for the log
+                System.err.println(loop.getName() + ": " + e);
+                e.printStackTrace();
+                reply("ERR internal error");
+            }
+            in.clear();
+        }
+
+        // Queue a line to the client, and close once it is written
+        private void reply(String line) {
+            byte[] message = (line + "\n").getBytes();
+            reserve(message.length);
+            out.put(message);
+            closing = true;
+        }
+
+        private void write() throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            boolean pending = out.position() > 0;
+            if (!pending && closing) {
+                close();
+            } else if (key.isValid()) {
+                key.interestOps((pending ? SelectionKey.OP_WRITE : 0)
+                        | (!closing && out.position() < MAX_PENDING_OUTPUT ? SelectionKey.OP_READ : 0));
+            }
+        }
+
+        private void result(int height) {
+            reserve(BufferedResultSink.MAX_RESULT_LENGTH);
+            out.position(BufferedResultSink.put(out.array(), out.position(), height));
+        }
+
+        // Grow the output buffer to take the given number of bytes more
+        private void reserve(int length) {
+            if (out.remaining() < length) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + length));
+                out.flip();
+                out = larger.put(out);
+            }
+        }
+
+        void close() {
+            if (!channel.isOpen()) {
+                return;
+            }
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // closing anyway
+            }
+            // The line being played, if any, is dropped
+            matrix.clearMatrix();
+            loop.idle.push(matrix);
+        }
+    }
+}
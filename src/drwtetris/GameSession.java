@@ -0,0 +1,138 @@
+package drwtetris;
+
+/**
+ * A GameSession plays a single game one shape at a time, for callers that
+ * receive the shapes as they come rather than as lines of a file:
+ *
+ *   try (GameSession session = pool.acquire()) {
+ *       session.drop(Shape.ShapeType.Q, 0);
+ *       int height = session.drop(Shape.ShapeType.I, 2);
+ *   }
+ *
+ * Dropping a shape costs the same as in a file game: the skyline gives the
+ * landing row at once, and only the rows the shape lands on are checked for
+ * clearing. Nothing is allocated per shape.
+ *
+ * A session is not thread-safe; it may be used by one thread at a time.
+ */
+public final class GameSession implements AutoCloseable {
+    // == Define GameSession's properties ==
+    private final Matrix matrix;
+    // The pool the session returns to when closed, null if none
+    private final SessionPool pool;
+    // Whether the session is idle in its pool
+    boolean idle;
+    // Number of shapes dropped in the game
+    private long shapes;
+
+    /**
+     * Constructor, for a session of its own on a matrix of the default width
+     */
+    public GameSession() {
+        this(Matrix.COLS);
+    }
+
+    /**
+     * Constructor, for a session of its own
+     * @param cols - number of columns of the matrix
+     */
+    public GameSession(int cols) {
+        this(new Matrix(cols), null);
+    }
+
+    GameSession(Matrix matrix, SessionPool pool) {
+        this.matrix = matrix;
+        this.pool = pool;
+    }
+
+    /**
+     * Drop a shape with its left-most cell at the given column.
+     * @return the height of the stack afterwards
+     * @throws IllegalArgumentException if the shape does not fit the matrix
+     *         at that column
+     */
+    public int drop(Shape.ShapeType shapeType, int column) {
+        return drop(Piece.of(shapeType), column);
+    }
+
+    /**
+     * Drop a shape turned rotation quarters clockwise from the drop
+     * orientation, with its leftmost cell at the given column.
+     * @return the height of the stack afterwards
+     * @throws IllegalArgumentException if the shape does not fit the matrix
+     *         at that column
+     */
+    public int drop(Shape.ShapeType shapeType, int rotation, int column) {
+        return drop(Piece.of(shapeType, rotation), column);
+    }
+
+    /**
+     * Drop a shape where a PlacementSearch advised to.
+     * @return the height of the stack afterwards
+     */
+    public int drop(Placement placement) {
+        return drop(placement.getPiece(), placement.getColumn());
+    }
+
+    private int drop(Piece piece, int column) {
+        if (column < 0 || column + piece.width() > matrix.getCols()) {
+            throw new IllegalArgumentException("Shape " + piece.shapeType() + " at column " + column
+                    + " does not fit a " + matrix.getCols() + " columns matrix");
+        }
+        matrix.addPieceToMatrix(piece, column);
+        shapes++;
+        return matrix.getHeight();
+    }
+
+    /**
+     * The height of the stack.
+     */
+    public int getHeight() {
+        return matrix.getHeight();
+    }
+
+    /**
+     * Number of shapes dropped since the game started.
+     */
+    public long getShapes() {
+        return shapes;
+    }
+
+    /**
+     * Number of columns of the matrix.
+     */
+    public int getCols() {
+        return matrix.getCols();
+    }
+
+    /**
+     * Check if the cell at the given row and column is occupied.
+     */
+    public boolean isOccupied(int row, int col) {
+        return matrix.isOccupied(row, col);
+    }
+
+    // The matrix played on, for PlacementSearch
+    Matrix matrix() {
+        return matrix;
+    }
+
+    /**
+     * Start a new game on an empty matrix.
+     */
+    public void reset() {
+        matrix.clearMatrix();
+        shapes = 0;
+    }
+
+    /**
+     * End the game. A pooled session is reset and returned to its pool, and
+     * shall not be used any more; closing it again does nothing.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.release(this);
+        }
+    }
+}
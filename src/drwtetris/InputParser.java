@@ -0,0 +1,236 @@
+package drwtetris;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The InputParser class decodes the game input: one game per line, each
+ * line a comma separated list of shapes written as letter and column,
+ * e.g. "Q0,I2,T4".
+ *
+ * Bytes are decoded straight into primitive shape codes (ShapeType ordinals)
+ * and columns and handed to a Listener, without creating any object per
+ * token or per line. The parser keeps its state between calls to parse(),
+ * so the input may be fed in arbitrary pieces.
+ */
+public class InputParser {
+
+    /**
+     * Receives the decoded input.
+     */
+    public interface Listener {
+        /** A shape of the given ShapeType ordinal is dropped at the given column */
+        void shape(int shapeIdx, int column);
+        /** The current line (game) has ended */
+        void endLine();
+    }
+
+    // == Define named constants ==
+    /** Size of the file regions memory-mapped at once (in bytes) */
+    public final static int MAP_WINDOW = 64 << 20;
+    /** Largest column decoded; a column is packed with its shape in an int
+     *  by the players that batch the shapes (CachedGame, GamePipeline) */
+    public final static int MAX_COLUMN = (1 << 24) - 1;
+
+    // ShapeType ordinal of each shape letter, -1 for any other byte
+    private static final byte[] SHAPE_CODES = new byte[256];
+    static {
+        Arrays.fill(SHAPE_CODES, (byte) -1);
+        for (Shape.ShapeType shapeType : Shape.ShapeType.values()) {
+            SHAPE_CODES[shapeType.name().charAt(0)] = (byte) shapeType.ordinal();
+        }
+    }
+
+    // == Define InputParser's properties ==
+    private final Listener listener;
+    // The shape of the token being decoded (-1 if none) and its column so
+    //  far (-1 until its first digit)
+    private int shapeIdx = -1;
+    private int column;
+    // Whether the current line holds any token yet, and whether a token
+    //  shall follow (after a comma)
+    private boolean inLine;
+    private boolean afterComma;
+    // Number of lines ended so far
+    private long lines;
+    // Offset in the input of the next byte to decode (at the start of the
+    //  buffer being decoded while in parse), and where decoding would resume
+    //  after the last shape or line end reported
+    private long offset;
+    private long resumeOffset;
+
+    /**
+     * Constructor
+     * @param listener - receives the shapes and line ends decoded
+     */
+    public InputParser(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Decode the input file at the given path, memory-mapping it a window
+     * at a time, then finish().
+     */
+    public void parseFile(Path path) throws IOException {
+        parseFile(path, 0);
+    }
+
+    /**
+     * Decode the input file at the given path from the given offset, which
+     * shall be the start of a token or line (see getResumeOffset()), then
+     * finish().
+     */
+    public void parseFile(Path path, long fromOffset) throws IOException {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        long linesBefore = lines;
+        long size;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            offset = resumeOffset = fromOffset;
+            for (long pos = fromOffset; pos < size; pos += MAP_WINDOW) {
+                parse(channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_WINDOW, size - pos)));
+            }
+        }
+        finish();
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path.toString();
+            event.bytes = size;
+            event.lines = lines - linesBefore;
+            event.commit();
+        }
+    }
+
+    /**
+     * Number of lines decoded so far.
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * The offset in the input from which decoding would resume after the
+     * last shape or line end reported to the listener, so that a game
+     * stopped there may be resumed with parseFile(path, offset).
+     */
+    public long getResumeOffset() {
+        return resumeOffset;
+    }
+
+    /**
+     * The input resumes in the middle of a line: finish() shall end it even
+     * if no token follows.
+     */
+    public void resumeLine() {
+        inLine = true;
+    }
+
+    /**
+     * Decode the remaining bytes of the buffer. A token may be split across
+     * consecutive calls.
+     */
+    public void parse(ByteBuffer buf) {
+        int limit = buf.limit();
+        // Offset in the input of byte 0 of the buffer
+        long base = offset - buf.position();
+        for (int i = buf.position(); i < limit; i++) {
+            int b = buf.get(i) & 0xFF;
+            if (b >= '0' && b <= '9') {
+                if (shapeIdx < 0) {
+                    throw unexpected(b);
+                }
+                column = Math.max(column, 0) * 10 + (b - '0');
+                if (column > MAX_COLUMN) {
+                    throw new IllegalArgumentException("Column out of range on line " + (lines + 1)
+                            + ": more than " + MAX_COLUMN);
+                }
+            } else if (b == ',') {
+                resumeOffset = base + i + 1;
+                if (shapeIdx < 0) {
+                    throw emptyToken();
+                }
+                endToken();
+                afterComma = true;
+            } else if (b == '\n') {
+                // Resuming after the last shape of the line still ends it
+                resumeOffset = base + i;
+                endLastToken();
+                inLine = false;
+                lines++;
+                resumeOffset++;
+                listener.endLine();
+            } else if (b != '\r' && b != ' ') {
+                int code = SHAPE_CODES[b];
+                if (code < 0 || shapeIdx >= 0) {
+                    throw unexpected(b);
+                }
+                shapeIdx = code;
+                column = -1;
+                inLine = true;
+                afterComma = false;
+            }
+        }
+        offset = base + limit;
+        buf.position(limit);
+    }
+
+    /**
+     * End of input: complete the last line if it has no line terminator.
+     */
+    public void finish() {
+        resumeOffset = offset;
+        endLastToken();
+        if (inLine) {
+            inLine = false;
+            lines++;
+            listener.endLine();
+        }
+    }
+
+    // End the token of the current shape, if any
+    private void endToken() {
+        if (shapeIdx >= 0) {
+            if (column < 0) {
+                throw new IllegalArgumentException("Missing column for shape "
+                        + Shape.ShapeType.values()[shapeIdx] + " on line " + (lines + 1));
+            }
+            listener.shape(shapeIdx, column);
+            shapeIdx = -1;
+            column = 0;
+        }
+    }
+
+    // End the last token of the line, which a comma shall not end
+    private void endLastToken() {
+        if (afterComma && shapeIdx < 0) {
+            throw emptyToken();
+        }
+        endToken();
+        afterComma = false;
+    }
+
+    /**
+     * Get the ShapeType ordinal of a shape letter.
+     * @throws IllegalArgumentException if ch is not a shape letter
+     */
+    static int shapeCode(char ch) {
+        int code = ch < SHAPE_CODES.length ? SHAPE_CODES[ch] : -1;
+        if (code < 0) {
+            throw unexpected(ch);
+        }
+        return code;
+    }
+
+    private IllegalArgumentException emptyToken() {
+        return new IllegalArgumentException("Empty shape on line " + (lines + 1));
+    }
+
+    private static IllegalArgumentException unexpected(int b) {
+        return new IllegalArgumentException("Unexpected character '" + (char) b + "' in input");
+    }
+}
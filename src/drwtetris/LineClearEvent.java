@@ -0,0 +1,25 @@
+package drwtetris;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of filled rows removed from the Matrix.
+ */
+@Name("drwtetris.LineClear")
+@Label("Line Clear")
+@Category("DRWTetris")
+@Description("Filled rows removed from the matrix")
+@StackTrace(false)
+public class LineClearEvent extends Event {
+    @Label("Rows")
+    int rows;
+
+    @Label("Height")
+    @Description("Stack height after the rows were removed")
+    int height;
+}
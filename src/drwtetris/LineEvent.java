@@ -0,0 +1,32 @@
+package drwtetris;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of a line (game) played, from its first shape to its result.
+ */
+@Name("drwtetris.Line")
+@Label("Line Played")
+@Category("DRWTetris")
+@Description("A line of input played as a game")
+@StackTrace(false)
+public class LineEvent extends Event {
+    @Label("Line")
+    long line;
+
+    @Label("Shapes")
+    int shapes;
+
+    @Label("Height")
+    @Description("Final stack height")
+    int height;
+
+    @Label("Peak Height")
+    @Description("Highest stack reached during the line")
+    int peakHeight;
+}
@@ -0,0 +1,53 @@
+package drwtetris;
+
+/**
+ * The LineProbe class instruments the lines played by a listener: the JFR
+ * LineEvent and the GameMetrics. Each is only paid for when enabled: a
+ * LineEvent is only kept while JFR records it, and the time is only taken
+ * while GameMetrics are on.
+ */
+final class LineProbe {
+    // The event of the current line, null if not recorded
+    private LineEvent event;
+    private long startNanos;
+    private boolean started;
+
+    /**
+     * The current line starts (its first shape is about to be dropped).
+     */
+    void start() {
+        started = true;
+        LineEvent event = new LineEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            this.event = event;
+        }
+        if (GameMetrics.ENABLED) {
+            startNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * The current line has been played.
+     */
+    void end(long line, int shapes, int height, int peakHeight) {
+        if (!started) {
+            return;  // no shape in this line
+        }
+        started = false;
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.line = line;
+                event.shapes = shapes;
+                event.height = height;
+                event.peakHeight = peakHeight;
+                event.commit();
+            }
+            event = null;
+        }
+        if (GameMetrics.ENABLED) {
+            GameMetrics.get().line(shapes, peakHeight, System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package drwtetris;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays every line of an input file as a game of Tetris, and writes the
+ * final stack height of each line, one per line.
+ *
+ * Usage: Main [-v|-vv] [-m] [-w cols] [-o output] [input]
+ *        Main [-v|-vv] [-m] [-w cols] [-o output] -c checkpoint [input]
+ *        Main [-m] [-w cols] -s address
+ *        Main [-m] [-w cols] [-j threads] [-d outdir] -b inputs...
+ *   -v        trace each line to the standard error
+ *   -vv       trace each shape to the standard error
+ *   -m        collect GameMetrics and print them to the standard error at the end
+ *   -w cols   play on a matrix of the given number of columns (10 by default)
+ *   -o output write the results to a file instead of the standard output
+ *   input     the input file, src/input.txt by default; "-" for the
+ *             standard input. The standard input, and inputs that are not
+ *             regular files (e.g. named pipes), are played as a stream of
+ *             any length by a GamePipeline
+ *   -c checkpoint save a Checkpoint of the game every Checkpoint.DEFAULT_INTERVAL
+ *             shapes in checkpoint.0 and checkpoint.1, and resume from it
+ *             if there is one; the output file (if any) is resumed too
+ *   -s address run as a GameServer instead, on a port of the loopback
+ *             address, host:port, or the path of a Unix domain socket
+ *   -b        play many input files (or the *.txt files of directories) in
+ *             one JVM with a BatchRunner, each into its own .out file
+ *   -j threads number of files played at once in batch mode (one per core
+ *             by default)
+ *   -d outdir write the batch output files there instead of next to the inputs
+ */
+public class Main {
+    // The input argument standing for the standard input
+    private final static String STDIN = "-";
+    private final static String USAGE = String.join(System.lineSeparator(),
+            "Usage: Main [-v|-vv] [-m] [-w cols] [-o output] [input]",
+            "       Main [-v|-vv] [-m] [-w cols] [-o output] -c checkpoint [input]",
+            "       Main [-m] [-w cols] -s address",
+            "       Main [-m] [-w cols] [-j threads] [-d outdir] -b inputs...");
+
+    public static void main(String[] args) throws IOException {
+        Trace.Level traceLevel = Trace.Level.OFF;
+        boolean metrics = false;
+        int cols = Matrix.COLS;
+        String output = null;
+        String input = Matrix.INPUT_FILE;
+        String serverAddress = null;
+        String checkpoint = null;
+        boolean batch = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String outputDir = null;
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-v":
+                    traceLevel = Trace.Level.LINES;
+                    break;
+                case "-vv":
+                    traceLevel = Trace.Level.SHAPES;
+                    break;
+                case "-m":
+                    metrics = true;
+                    break;
+                case "-w":
+                    cols = positive(args, ++i);
+                    break;
+                case "-o":
+                    output = value(args, ++i);
+                    break;
+                case "-c":
+                    checkpoint = value(args, ++i);
+                    break;
+                case "-s":
+                    serverAddress = value(args, ++i);
+                    break;
+                case "-b":
+                    batch = true;
+                    break;
+                case "-j":
+                    threads = positive(args, ++i);
+                    break;
+                case "-d":
+                    outputDir = value(args, ++i);
+                    break;
+                default:
+                    if (args[i].startsWith("-") && !args[i].equals(STDIN)) {
+                        usage("Unknown option: " + args[i]);
+                    }
+                    input = args[i];
+                    inputs.add(args[i]);
+                    break;
+            }
+        }
+
+        if (metrics) {
+            // Before GameMetrics is loaded, as GameMetrics.ENABLED is a constant
+            System.setProperty(GameMetrics.PROPERTY, "true");
+        }
+
+        if (serverAddress != null) {
+            serve(GameServer.parseAddress(serverAddress), cols, metrics);
+            return;
+        }
+        if (batch) {
+            BatchRunner runner = new BatchRunner(threads, cols, outputDir == null ? null : Path.of(outputDir));
+            int failed = 0;
+            try {
+                failed = runner.run(BatchRunner.listInputs(inputs, BatchRunner.DEFAULT_GLOB), System.err);
+            } catch (IllegalArgumentException e) {
+                // Inputs writing the same output file
+                System.err.println(e.getMessage());
+                System.exit(2);
+            }
+            if (metrics) {
+                GameMetrics.get().report(System.err);
+            }
+            if (failed > 0) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        Matrix matrix = new Matrix(cols);
+        matrix.setTrace(new Trace(traceLevel, System.err));
+        if (checkpoint != null) {
+            Path path = Path.of(input);
+            if (input.equals(STDIN) || (Files.exists(path) && !Files.isRegularFile(path))) {
+                // A stream cannot be read again from a checkpoint
+                usage("-c is not supported with the standard input, or inputs that are not regular files");
+            }
+            playCheckpointed(matrix, Path.of(input), output == null ? null : Path.of(output), Path.of(checkpoint));
+        } else {
+            try (ResultSink results = output == null ? ResultSink.toStdout() : ResultSink.toFile(Path.of(output))) {
+                Path path = Path.of(input);
+                if (input.equals(STDIN)) {
+                    new GamePipeline(matrix).run(new FileInputStream(FileDescriptor.in).getChannel(), results);
+                } else if (Files.exists(path) && !Files.isRegularFile(path)) {
+                    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                        new GamePipeline(matrix).run(channel, results);
+                    }
+                } else {
+                    matrix.newGame(path, results);
+                }
+            }
+        }
+        if (metrics) {
+            GameMetrics.get().report(System.err);
+        }
+    }
+
+    // The value of the option before it, if any
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            usage("Missing value of " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    // The value of the option before it, which shall be a positive int
+    private static int positive(String[] args, int i) {
+        String value = value(args, i);
+        try {
+            int n = Integer.parseInt(value);
+            if (n > 0) {
+                return n;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        usage("The value of " + args[i - 1] + " shall be a positive integer: " + value);
+        return 0;
+    }
+
+    // Report a bad command line and exit
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+    // Run a GameServer until the JVM is stopped
+    private static void serve(SocketAddress address, int cols, boolean metrics) throws IOException {
+        GameServer server = new GameServer(address, Runtime.getRuntime().availableProcessors(), cols);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            if (metrics) {
+                GameMetrics.get().report(System.err);
+            }
+        }));
+        System.err.println("Serving on " + server.getAddress());
+        server.serve();
+    }
+
+    // Play the input from its last checkpoint, if any, saving checkpoints
+    //  as it goes. The results are flushed before each checkpoint is saved,
+    //  so the output holds the results of all the lines before it.
+    private static void playCheckpointed(Matrix matrix, Path input, Path output, Path checkpoint) throws IOException {
+        try (CheckpointStore store = new CheckpointStore(checkpoint)) {
+            Checkpoint from = store.load();
+            if (from != null) {
+                try {
+                    // Before the output is resumed
+                    from.checkInput(input);
+                } catch (IllegalArgumentException e) {
+                    System.err.println(e.getMessage() + "; delete " + checkpoint + ".0 and "
+                            + checkpoint + ".1 to start over");
+                    System.exit(2);
+                }
+                System.err.println("Resuming from line " + from.getLine() + ", offset " + from.getOffset());
+            }
+            try (ResultSink results = output == null ? ResultSink.toStdout()
+                    : from == null ? ResultSink.toFile(output) : ResultSink.appendTo(output, from.getLine() - 1)) {
+                matrix.resumeGame(input, from, results, Checkpoint.DEFAULT_INTERVAL, next -> {
+                    try {
+                        results.flush();
+                        store.save(next);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+            }
+            store.delete();
+        }
+    }
+}
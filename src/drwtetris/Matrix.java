@@ -0,0 +1,692 @@
+package drwtetris;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * The Matrix class models the Tetris Game Board (called matrix)
+ * that holds one falling block (shape).
+ * Row 0 is the bottom row of the matrix; rows are numbered upwards.
+ */
+public class Matrix  {
+    // == Define named constants ==
+    /** The input file played by newGame() */
+    public final static String INPUT_FILE = "src/input.txt";
+    /** Number of rows of the matrix shown on screen. The stack itself may
+     *  grow to any height. */
+    public final static int ROWS = 10;
+    /** Default number of columns of the matrix */
+    public final static int COLS = 10;
+    /** The width and height of a cell of the Shape (in pixels) */
+    public final static int CELL_SIZE = Shape.CELL_SIZE;
+    /** Bit pattern of a row of a COLS wide matrix whose cells are all occupied */
+    public final static long FULL_ROW = (1L << COLS) - 1;
+
+    static final Color COLOR_OCCUPIED = Color.LIGHT_GRAY;
+    static final Color COLOR_EMPTY = Color.WHITE;
+
+    // == Define Matrix's properties ==
+    // Property 0: The number of columns of the matrix
+    final int cols;
+    // Property 1: The game board (matrix) is defined as a bitboard, one bit
+    //  per cell packed into 64-bit words, see RowStore. Rows are allocated in
+    //  chunks as the stack grows.
+    final RowStore rows;
+    // Property 2: The skyline of the board. heights[col] is one above the
+    //  topmost occupied cell of the column (0 if the column is empty), and
+    //  height is the maximum over all columns. Maintained incrementally.
+    final int heights[];
+    int height;
+    // The highest the stack has been since the matrix was last emptied
+    int peakHeight;
+    // Property 3: The board has ONE falling shape
+    Shape shape;
+    // Property 4: Debug tracing, and whether shapes and lines are traced
+    //  (so that nothing is done for tracing while it is off)
+    private Trace trace = Trace.OFF;
+    private boolean traceShapes, traceLines;
+    // Property 5: The renderer drawing the matrix, if any, told of the rows
+    //  that change
+    private MatrixRenderer renderer;
+
+    /**
+     * Constructor, of a COLS wide matrix
+     */
+    public Matrix() {
+        this(COLS);
+    }
+
+    /**
+     * Constructor
+     * @param cols - number of columns of the matrix
+     */
+    public Matrix(int cols) {
+        this.cols = cols;
+        this.rows = new RowStore(cols);
+        this.heights = new int[cols];
+    }
+
+    /**
+     * The number of columns of the matrix.
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Reset the matrix for a new game, by reseting all the properties.
+     * Clear the rows and get a new random Shape.
+     * Plays every line of INPUT_FILE, writing the final stack height of
+     * each line to the standard output.
+     */
+    public void newGame() {
+        newGame(INPUT_FILE);
+    }
+
+    /**
+     * Play every line of the given input file as a new game, starting from
+     * an empty matrix each time, writing the final stack height of each line
+     * to the standard output.
+     */
+    public void newGame(String path) {
+        try (ResultSink results = ResultSink.toStdout()) {
+            newGame(Path.of(path), results);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Play every line of the given input file as a new game, starting from
+     * an empty matrix each time.
+     * The file is memory-mapped and decoded by InputParser without creating
+     * objects per shape.
+     * @param results - receives the final stack height of each line, in order
+     */
+    public void newGame(Path path, IntConsumer results) throws IOException {
+        newParser(results).parseFile(path);
+    }
+
+    /**
+     * Play every line of the given input file as a new game, as above,
+     * taking a Checkpoint every interval shapes.
+     * @param checkpoints - receives the checkpoints, e.g. to save them with
+     *                    a CheckpointStore
+     */
+    public void newGame(Path path, IntConsumer results, int interval,
+                        Consumer<Checkpoint> checkpoints) throws IOException {
+        resumeGame(path, null, results, interval, checkpoints);
+    }
+
+    /**
+     * Resume playing the lines of the given input file from a Checkpoint
+     * taken by newGame(), taking a Checkpoint every interval shapes.
+     * The results of the lines before the checkpoint are not reported again.
+     * @param from - the checkpoint, null to start from the beginning
+     * @throws IllegalArgumentException if the input has changed since the
+     *                                  checkpoint was taken
+     */
+    public void resumeGame(Path path, Checkpoint from, IntConsumer results, int interval,
+                           Consumer<Checkpoint> checkpoints) throws IOException {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive: " + interval);
+        }
+        if (from != null) {
+            from.checkInput(path);
+        }
+        BasicFileAttributes input = Files.readAttributes(path, BasicFileAttributes.class);
+        newParser(results, from, input, interval, checkpoints).parseFile(path, from == null ? 0 : from.getOffset());
+    }
+
+    /**
+     * Play every line in the remaining bytes of the buffer as a new game,
+     * starting from an empty matrix each time.
+     * @param results - receives the final stack height of each line, in order
+     */
+    public void newGame(ByteBuffer input, IntConsumer results) {
+        InputParser parser = newParser(results);
+        parser.parse(input);
+        parser.finish();
+    }
+
+    /**
+     * Set the debug tracing of the games played (Trace.OFF by default).
+     */
+    public void setTrace(Trace trace) {
+        this.trace = trace;
+        this.traceShapes = trace.isEnabled(Trace.Level.SHAPES);
+        this.traceLines = trace.isEnabled(Trace.Level.LINES);
+    }
+
+    // A parser dropping shapes on this matrix, and reporting the height and
+    // clearing the matrix at the end of each line.
+    InputParser newParser(IntConsumer results) {
+        return newParser(results, null, null, 0, null);
+    }
+
+    // A listener dropping shapes on this matrix as the parser of newParser()
+    // does, for input decoded elsewhere (see GamePipeline).
+    InputParser.Listener newPlayer(IntConsumer results) {
+        return new LinePlayer(results, 0, null);
+    }
+
+    // A parser as newParser(results), playing from the given checkpoint (null to start
+    // afresh), and taking a checkpoint of the given input every interval
+    // shapes if checkpoints is not null.
+    private InputParser newParser(IntConsumer results, Checkpoint from, BasicFileAttributes input,
+                                  int interval, Consumer<Checkpoint> checkpoints) {
+        LinePlayer player = new LinePlayer(results, interval, checkpoints);
+        player.parser = new InputParser(player);
+        if (input != null) {
+            player.inputSize = input.size();
+            player.inputTime = input.lastModifiedTime().toMillis();
+        }
+        if (from != null) {
+            restore(from.getState());
+            player.line = from.getLine();
+            player.shapes = from.getShapes();
+            if (player.shapes > 0) {
+                player.parser.resumeLine();
+            }
+        }
+        return player.parser;
+    }
+
+    // The listener of the parser of newParser()
+    private class LinePlayer implements InputParser.Listener {
+        final IntConsumer results;
+        final int interval;
+        final Consumer<Checkpoint> checkpoints;
+        InputParser parser;
+        // Size and modification time of the input, for the checkpoints
+        long inputSize;
+        long inputTime;
+        // Line number and shapes so far, for tracing and instrumentation
+        long line = 1;
+        int shapes;
+        // Shapes dropped since the last checkpoint
+        int sinceCheckpoint;
+        final LineProbe probe = new LineProbe();
+
+        LinePlayer(IntConsumer results, int interval, Consumer<Checkpoint> checkpoints) {
+            this.results = results;
+            this.interval = interval;
+            this.checkpoints = checkpoints;
+        }
+
+        @Override
+        public void shape(int shapeIdx, int column) {
+            if (shapes == 0) {
+                probe.start();
+            }
+            checkColumn(shapeIdx, column, line);
+            int landingRow = addShapeToMatrix(shapeIdx, column);
+            shapes++;
+            if (traceShapes) {
+                trace.shape(line, shapeIdx, column, landingRow, height);
+            }
+            if (checkpoints != null && ++sinceCheckpoint == interval) {
+                sinceCheckpoint = 0;
+                checkpoints.accept(new Checkpoint(inputSize, inputTime, parser.getResumeOffset(), line,
+                        shapes, snapshot()));
+            }
+        }
+
+        @Override
+        public void endLine() {
+            if (traceLines) {
+                trace.line(line, shapes, height);
+            }
+            probe.end(line, shapes, height, peakHeight);
+            results.accept(height);
+            clearMatrix();
+            line++;
+            shapes = 0;
+        }
+    }
+
+    /**
+     * Empty the matrix, for the next line (game).
+     */
+    void clearMatrix(){
+        rowsChanged(0, height);
+        rows.clear();  // empty
+        Arrays.fill(heights, 0);
+        height = 0;
+        peakHeight = 0;
+    }
+
+    /**
+     * The height of the stack, i.e. the number of rows from the bottom of the
+     * matrix up to and including the topmost occupied row.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Check if the cell at the given row and column is occupied.
+     * @return true if the cell holds part of a locked shape
+     */
+    public boolean isOccupied(int row, int col) {
+        return rows.isSet(row, col);
+    }
+
+    /**
+     * Take a copy of the matrix contents (rows and skyline), that can be
+     * restored later, possibly on another Matrix.
+     */
+    public State snapshot() {
+        long[] stateRows = new long[height * rows.words()];
+        rows.copyTo(stateRows, height);
+        return new State(stateRows, heights.clone(), height);
+    }
+
+    /**
+     * The sizeInBytes() of a snapshot taken now, without taking it.
+     */
+    long snapshotSize() {
+        return State.sizeInBytes(height * rows.words(), cols);
+    }
+
+    /**
+     * Replace the matrix contents with the given snapshot.
+     */
+    public void restore(State state) {
+        if (state.heights.length != cols) {
+            throw new IllegalArgumentException("Snapshot of a " + state.heights.length
+                    + " columns matrix restored on a " + cols + " columns matrix");
+        }
+        clearMatrix();
+        rows.load(state.rows, state.height);
+        rowsChanged(0, state.height);
+        System.arraycopy(state.heights, 0, heights, 0, cols);
+        height = state.height;
+        peakHeight = height;
+    }
+
+    /**
+     * An immutable copy of the contents of a Matrix, see snapshot().
+     */
+    public static final class State {
+        private final long[] rows;
+        private final int[] heights;
+        private final int height;
+
+        private State(long[] rows, int[] heights, int height) {
+            this.rows = rows;
+            this.heights = heights;
+            this.height = height;
+        }
+
+        /** The height of the stack */
+        public int getHeight() {
+            return height;
+        }
+
+        /** Approximate memory held by this snapshot (in bytes) */
+        public long sizeInBytes() {
+            return sizeInBytes(rows.length, heights.length);
+        }
+
+        static long sizeInBytes(int words, int cols) {
+            return 48 + 8L * words + 4L * cols;
+        }
+
+        // == Binary form, see Checkpoint ==
+        // The number of columns, the height, the skyline, then the rows
+        //  bit-packed: cols bits per row, with no padding between rows.
+
+        /** Size of the binary form (in bytes) */
+        int encodedSize() {
+            return (int) (8 + 4L * heights.length + 8 * packedWords(heights.length, height));
+        }
+
+        /** Write the binary form into buf */
+        void encode(ByteBuffer buf) {
+            int cols = heights.length;
+            int words = (cols + 63) >>> 6;
+            buf.putInt(cols).putInt(height);
+            for (int colHeight : heights) {
+                buf.putInt(colHeight);
+            }
+            long packed = 0;
+            int used = 0;  // bits of packed in use
+            for (int row = 0; row < height; row++) {
+                for (int word = 0; word < words; word++) {
+                    long bits = rows[row * words + word];
+                    int n = Math.min(64, cols - (word << 6));
+                    packed |= bits << used;
+                    used += n;
+                    if (used >= 64) {
+                        buf.putLong(packed);
+                        used -= 64;
+                        // The bits that did not fit
+                        packed = used == 0 ? 0 : bits >>> (n - used);
+                    }
+                }
+            }
+            if (used > 0) {
+                buf.putLong(packed);
+            }
+        }
+
+        /**
+         * Read the binary form from buf.
+         * @throws IllegalArgumentException if it is not consistent
+         */
+        static State decode(ByteBuffer buf) {
+            int cols = buf.getInt();
+            int height = buf.getInt();
+            if (cols <= 0 || height < 0 || 4L * cols + 8L * packedWords(cols, height) > buf.remaining()) {
+                throw new IllegalArgumentException("Bad matrix state: " + cols + " columns, height " + height);
+            }
+            int[] heights = new int[cols];
+            for (int col = 0; col < cols; col++) {
+                heights[col] = buf.getInt();
+            }
+            int words = (cols + 63) >>> 6;
+            long[] rows = new long[height * words];
+            long packed = 0;
+            int left = 0;  // bits of packed not read yet
+            for (int i = 0; i < rows.length; i++) {
+                int n = Math.min(64, cols - ((i % words) << 6));
+                long bits = packed;
+                if (left < n) {
+                    long next = buf.getLong();
+                    bits |= next << left;
+                    packed = n - left == 64 ? 0 : next >>> (n - left);
+                    left += 64 - n;
+                } else {
+                    packed = n == 64 ? 0 : packed >>> n;
+                    left -= n;
+                }
+                rows[i] = n == 64 ? bits : bits & ((1L << n) - 1);
+            }
+            return new State(rows, heights, height);
+        }
+
+        private static long packedWords(int cols, int height) {
+            return ((long) cols * height + 63) >>> 6;
+        }
+    }
+
+    /**
+     * Drop every shape of a line of input, e.g. "Q0,I2,T4", on the matrix.
+     * The line is decoded by an InputParser, as newGame() decodes a file.
+     * @return the height of the stack afterwards
+     * @throws IllegalArgumentException if the line is malformed
+     */
+    public int processLine(String line){
+        InputParser parser = new InputParser(new InputParser.Listener() {
+            @Override
+            public void shape(int shapeIdx, int column) {
+                checkColumn(shapeIdx, column, 1);
+                addShapeToMatrix(shapeIdx, column);
+            }
+
+            @Override
+            public void endLine() {
+            }
+        });
+        parser.parse(ByteBuffer.wrap(line.getBytes(StandardCharsets.ISO_8859_1)));
+        parser.finish();
+        return height;
+    }
+
+    /**
+     * Start a new falling shape of the given type with its leftmost column
+     * at the given column, just above the stack: high enough to be rotated
+     * in any of its rotations.
+     */
+    public void newShape(Shape.ShapeType shapeType, int column) {
+        shape = Shape.newShape(shapeType, column);
+        shape.y = height + Math.max(shape.maxRows, shape.maxCols) - 1;
+    }
+
+    /**
+     * The shape moves on the given action (left, right, down, rotate).
+     * A move that is not allowed is undone.
+     * @return true if it is at the bottom and cannot move down further.
+     *         Need to lock down this block.
+     */
+    public boolean stepGame(Action action) {
+        switch (action) {
+            case LEFT:
+                shape.x--;  // try moving
+                if (!actionAllowed()) shape.x++;  // undo the move
+                break;
+            case RIGHT:
+                shape.x++;
+                if (!actionAllowed()) shape.x--;  // undo the move
+                break;
+            case ROTATE_LEFT:
+                shape.rotateLeft();
+                if (!actionAllowed()) shape.undoRotate();  // undo the move
+                break;
+            case ROTATE_RIGHT:
+                shape.rotateRight();
+                if (!actionAllowed()) shape.undoRotate();  // undo the move
+                break;
+            case HARD_DROP:
+            case SOFT_DROP:
+                do {
+                    shape.y--;
+                } while (actionAllowed());
+                shape.y++;
+                return true;
+            case DOWN:
+                shape.y--;  // rows are numbered upwards
+                if (!actionAllowed()) {
+                    // At bottom, cannot move down further. To lock down this block
+                    shape.y++;    // undo the move
+                    return true;
+                }
+                break;
+        }
+        return false;  // not reach the bottom
+    }
+
+    /**
+     * Check if the shape moves outside the matrix,
+     *   or collide with existing shapes in the matrix.
+     * Each row of the shape is tested at once, as a bit pattern against the
+     * row of the matrix. There is no top: the stack may grow to any height.
+     * @return true if this move action is allowed
+     */
+    public boolean actionAllowed() {
+        Piece piece = shape.piece;
+        int bottomRow = shape.y - (piece.height() - 1);
+        if (bottomRow < 0 || shape.x < 0 || shape.x + piece.width() > cols) {
+            return false;
+        }
+        if (bottomRow >= height) {
+            return true;  // above the stack
+        }
+        for (int pieceRow = 0; pieceRow < piece.height(); pieceRow++) {
+            if (rows.overlaps(bottomRow + pieceRow, shape.x, piece.rowMask(pieceRow))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check that the shape of the given ShapeType ordinal fits the matrix
+     * with its leftmost cell at the given column.
+     * @param line - the line of input the shape comes from, for the message
+     * @throws IllegalArgumentException if it does not
+     */
+    void checkColumn(int shapeIdx, int column, long line) {
+        if (column < 0 || column + Piece.of(shapeIdx).width() > cols) {
+            throw new IllegalArgumentException("Column " + column + " out of range for shape "
+                    + Shape.ShapeType.values()[shapeIdx] + " on line " + line
+                    + ": the matrix has " + cols + " columns");
+        }
+    }
+
+    /**
+     * Drop the shape of the given ShapeType ordinal straight down at the
+     * given leftmost column until it rests on the stack, then clear filled
+     * lines.
+     * The landing row is found from the skyline: the shape's bottom profile
+     * is matched against the heights of the 1-4 columns it covers.
+     * @return the row the bottom of the shape landed on
+     */
+    int addShapeToMatrix(int shapeIdx, int leftMostIndex){
+        return addPieceToMatrix(Piece.of(shapeIdx), leftMostIndex);
+    }
+
+    /**
+     * Drop the piece (a shape in any rotation) at the given leftmost column,
+     * as addShapeToMatrix(int, int).
+     * @return the row the bottom of the piece landed on
+     */
+    int addPieceToMatrix(Piece piece, int leftMostIndex){
+        int landingRow = piece.landingRow(heights, leftMostIndex);
+
+        for (int pieceRow = 0; pieceRow < piece.height(); pieceRow++) {
+            this.rows.orBits(landingRow + pieceRow, leftMostIndex, piece.rowMask(pieceRow));
+        }
+        for (int pieceCol = 0; pieceCol < piece.width(); pieceCol++) {
+            heights[leftMostIndex + pieceCol] = landingRow + piece.top(pieceCol);
+        }
+        height = Math.max(height, landingRow + piece.height());
+        peakHeight = Math.max(peakHeight, height);
+        rowsChanged(landingRow, landingRow + piece.height());
+
+        // Only the rows just filled by the shape can have become full
+        clearLines(landingRow, landingRow + piece.height());
+        return landingRow;
+    }
+
+    /**
+     * Lock down the block, by transfer the block's content to the matrix.
+     * Also clear filled lines, if any.
+
+     * @return the number of rows removed in the range of [0, 4]
+     */
+    public int lockDown() {
+        // Block at bottom, lock down by transferring the block's content
+        //  to the matrix. The shape's top row is at matrix row shape.y.
+        Piece piece = shape.piece;
+        int bottomRow = shape.y - (piece.height() - 1);
+        for (int pieceRow = 0; pieceRow < piece.height(); pieceRow++) {
+            this.rows.orBits(bottomRow + pieceRow, shape.x, piece.rowMask(pieceRow));
+        }
+        for (int pieceCol = 0; pieceCol < piece.width(); pieceCol++) {
+            int col = shape.x + pieceCol;
+            heights[col] = Math.max(heights[col], bottomRow + piece.top(pieceCol));
+        }
+        height = Math.max(height, shape.y + 1);
+        peakHeight = Math.max(peakHeight, height);
+        rowsChanged(bottomRow, shape.y + 1);
+        // Process the filled row(s) and update the score. Only the rows
+        // of the shape can have become full.
+        return clearLines(bottomRow, shape.y + 1);
+    }
+
+    /**
+     * Process the filled rows in the game board and remove them.
+     * The filled rows need not be at the bottom.
+     *
+     * @return the number of rows removed in the range of [0, 4]
+     */
+    public int clearLines() {
+        return clearLines(0, height);
+    }
+
+    /**
+     * Process the filled rows in the given range [fromRow, toRow) of the
+     * game board and remove them.
+     *
+     * @return the number of rows removed
+     */
+    private int clearLines(int fromRow, int toRow) {
+        // A row is filled when all its bits are set, tested a word (or a
+        // vector of words) at a time. The filled rows are removed at once:
+        // the rows above are moved down by re-indexing, not copying.
+        // Only rows below the stack height can be filled.
+        int rowsRemoved = rows.removeFullRows(fromRow, Math.min(toRow, height), height);
+        height -= rowsRemoved;
+
+        // Every column has a cell in each removed row, so all of them lie
+        // below the top of every column: the skyline drops by rowsRemoved.
+        // If the top cell of a column was itself removed, the column drops
+        // further, down to its next occupied cell.
+        if (rowsRemoved > 0) {
+            // The rows above the first one removed have all moved down
+            rowsChanged(fromRow, height + rowsRemoved);
+            height = 0;
+            for (int col = 0; col < cols; col++) {
+                int colHeight = heights[col] - rowsRemoved;
+                while (colHeight > 0 && !isOccupied(colHeight - 1, col)) {
+                    colHeight--;
+                }
+                heights[col] = colHeight;
+                height = Math.max(height, colHeight);
+            }
+
+            if (GameMetrics.ENABLED) {
+                GameMetrics.get().rowsCleared(rowsRemoved);
+            }
+            LineClearEvent event = new LineClearEvent();
+            if (event.shouldCommit()) {
+                event.rows = rowsRemoved;
+                event.height = height;
+                event.commit();
+            }
+        }
+        return rowsRemoved;
+    }
+
+    /**
+     * Set the renderer told of the rows that change, null for none.
+     * See MatrixRenderer.
+     */
+    void setRenderer(MatrixRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    // Tell the renderer, if any, that the rows [fromRow, toRow) may have changed
+    private void rowsChanged(int fromRow, int toRow) {
+        if (renderer != null) {
+            renderer.rowsChanged(fromRow, toRow);
+        }
+    }
+
+    /**
+     * Paint itself via the Graphics context: the bottom ROWS rows, and the
+     * falling shape if any. Every cell is painted; a MatrixRenderer paints
+     * only the cells that changed since its last frame.
+     * The JFrame's repaint() in GameMain class callbacks paintComponent(Graphics)
+     * This matrix.paint(Graphics) shall be placed in paintComponent(Graphics).
+
+     * @param g - the drawing Graphics object
+     */
+    public void paint(Graphics g) {
+        Image occupied = Tiles.of(COLOR_OCCUPIED);
+        Image empty = Tiles.of(COLOR_EMPTY);
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < cols; col++) {
+                g.drawImage(isOccupied(row, col) ? occupied : empty,
+                        col * CELL_SIZE, (ROWS - 1 - row) * CELL_SIZE, null);
+            }
+        }
+
+        // Also paint the Shape encapsulated
+        if (shape != null) {
+            shape.paint(g);
+        }
+    }
+}
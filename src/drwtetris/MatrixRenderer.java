@@ -0,0 +1,240 @@
+package drwtetris;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * The MatrixRenderer class draws a Matrix, and its falling shape if any,
+ * into an offscreen back buffer, one frame at a time, e.g. for a replay
+ * viewer. The back buffer is a BufferedImage, so it renders headless too.
+ *
+ * Only the cells that changed since the last frame are painted: the Matrix
+ * tells its renderer the rows its lockDown(), addShapeToMatrix() and line
+ * clears change, and the renderer compares those rows, a word at a time,
+ * with the rows it last painted. Each cell is painted by copying a tile
+ * pre-rendered for its color (see Tiles). The cost of a frame follows the
+ * number of cells changed, not the size of the matrix.
+ *
+ * The renderer shows viewRows rows of the matrix, from viewRow up; when
+ * following, the view scrolls to keep the top of the stack and the falling
+ * shape in view, so tall stacks can be replayed. Scrolling moves the back
+ * buffer contents, and only paints the rows brought into view.
+ */
+public class MatrixRenderer {
+    // == Define MatrixRenderer's properties ==
+    private final Matrix matrix;
+    private final int cols;
+    private final int words;
+    private final int viewRows;
+    // The bottom row of the matrix shown
+    private int viewRow;
+    // Whether to scroll to the top of the stack
+    private boolean follow;
+    private final BufferedImage backBuffer;
+    private final Graphics2D g;
+    private final BufferedImage occupiedTile, emptyTile;
+    // The cells painted in the back buffer, as the words of the rows of the
+    //  matrix: shown[viewRowIndex * words + word], bottom row of the view first
+    private final long[] shown;
+    // The rows [dirtyFrom, dirtyTo) of the matrix changed since the last frame
+    private int dirtyFrom, dirtyTo;
+    // The falling shape painted in the last frame, null if none
+    private Piece shapePiece;
+    private int shapeX, shapeY;
+    // Number of cells painted so far
+    private long cellsPainted;
+
+    /**
+     * Constructor: render the given matrix, showing viewRows rows from the
+     * bottom. The renderer is told of the changes to the matrix until it is
+     * disposed of.
+     */
+    public MatrixRenderer(Matrix matrix, int viewRows) {
+        this.matrix = matrix;
+        this.cols = matrix.getCols();
+        this.words = matrix.rows.words();
+        this.viewRows = viewRows;
+        this.backBuffer = new BufferedImage(cols * Shape.CELL_SIZE, viewRows * Shape.CELL_SIZE,
+                BufferedImage.TYPE_INT_RGB);
+        this.g = backBuffer.createGraphics();
+        this.occupiedTile = Tiles.of(Matrix.COLOR_OCCUPIED);
+        this.emptyTile = Tiles.of(Matrix.COLOR_EMPTY);
+        this.shown = new long[viewRows * words];
+        this.dirtyFrom = Integer.MAX_VALUE;
+        paintRows(0, viewRows);
+        matrix.setRenderer(this);
+    }
+
+    /**
+     * Keep the top of the stack (and the falling shape) in view from now on,
+     * or stop following.
+     */
+    public void setFollow(boolean follow) {
+        this.follow = follow;
+    }
+
+    /**
+     * Show the rows from the given row up (stops following).
+     */
+    public void setViewRow(int viewRow) {
+        follow = false;
+        scrollTo(Math.max(viewRow, 0));
+    }
+
+    /** The bottom row of the matrix shown */
+    public int getViewRow() {
+        return viewRow;
+    }
+
+    /**
+     * Called by the Matrix: the rows [fromRow, toRow) may have changed.
+     */
+    void rowsChanged(int fromRow, int toRow) {
+        dirtyFrom = Math.min(dirtyFrom, fromRow);
+        dirtyTo = Math.max(dirtyTo, toRow);
+    }
+
+    /**
+     * Bring the back buffer up to date with the matrix.
+     * @return the number of cells painted
+     */
+    public int render() {
+        long before = cellsPainted;
+        Shape shape = matrix.shape;
+        uncoverShape();
+        if (follow) {
+            int top = matrix.height;
+            if (shape != null) {
+                top = Math.max(top, shape.y + 1);
+            }
+            scrollTo(Math.max(top - viewRows, 0));
+        }
+
+        // The cells of the changed rows that differ from those painted
+        int from = Math.max(dirtyFrom, viewRow);
+        int to = Math.min(dirtyTo, viewRow + viewRows);
+        for (int row = from; row < to; row++) {
+            int base = (row - viewRow) * words;
+            for (int word = 0; word < words; word++) {
+                long cells = matrix.rows.word(row, word);
+                long changed = cells ^ shown[base + word];
+                while (changed != 0) {
+                    int col = (word << 6) + Long.numberOfTrailingZeros(changed);
+                    paintCell(row, col, (cells & (1L << col)) != 0 ? occupiedTile : emptyTile);
+                    changed &= changed - 1;
+                }
+                shown[base + word] = cells;
+            }
+        }
+        dirtyFrom = Integer.MAX_VALUE;
+        dirtyTo = 0;
+
+        // The falling shape, on top
+        if (shape != null) {
+            Piece piece = shape.piece;
+            BufferedImage tile = Tiles.of(Shape.colorOf(shape.shapeIdx));
+            int bottomRow = shape.y - (piece.height() - 1);
+            for (int cell = 0; cell < piece.cellCount(); cell++) {
+                int row = bottomRow + piece.cellRow(cell);
+                if (row >= viewRow && row < viewRow + viewRows) {
+                    paintCell(row, shape.x + piece.cellCol(cell), tile);
+                }
+            }
+            shapePiece = piece;
+            shapeX = shape.x;
+            shapeY = shape.y;
+        }
+        return (int) (cellsPainted - before);
+    }
+
+    /**
+     * The back buffer, as of the last render().
+     */
+    public BufferedImage getImage() {
+        return backBuffer;
+    }
+
+    /**
+     * Copy the back buffer onto the given Graphics, e.g. of the component
+     * showing the game.
+     */
+    public void paint(Graphics graphics) {
+        graphics.drawImage(backBuffer, 0, 0, null);
+    }
+
+    /** Number of cells painted so far */
+    public long getCellsPainted() {
+        return cellsPainted;
+    }
+
+    /**
+     * Stop rendering the matrix, and release the back buffer's Graphics.
+     */
+    public void dispose() {
+        matrix.setRenderer(null);
+        g.dispose();
+    }
+
+    // Show the rows from the given row up: move the rows still in view, and
+    //  paint the others
+    private void scrollTo(int newViewRow) {
+        int shift = newViewRow - viewRow;
+        if (shift == 0) {
+            return;
+        }
+        uncoverShape();  // not to move it along
+        viewRow = newViewRow;
+        if (Math.abs(shift) >= viewRows) {
+            paintRows(0, viewRows);
+            return;
+        }
+        int keep = viewRows - Math.abs(shift);
+        int size = Shape.CELL_SIZE;
+        if (shift > 0) {
+            // The view moves up: the rows kept move down on screen
+            g.copyArea(0, 0, cols * size, keep * size, 0, shift * size);
+            System.arraycopy(shown, shift * words, shown, 0, keep * words);
+            paintRows(keep, viewRows);
+        } else {
+            g.copyArea(0, -shift * size, cols * size, keep * size, 0, shift * size);
+            System.arraycopy(shown, 0, shown, -shift * words, keep * words);
+            paintRows(0, -shift);
+        }
+    }
+
+    // Paint the board back where the shape was painted
+    private void uncoverShape() {
+        if (shapePiece == null) {
+            return;
+        }
+        int bottomRow = shapeY - (shapePiece.height() - 1);
+        for (int cell = 0; cell < shapePiece.cellCount(); cell++) {
+            int row = bottomRow + shapePiece.cellRow(cell);
+            int col = shapeX + shapePiece.cellCol(cell);
+            if (row >= viewRow && row < viewRow + viewRows) {
+                boolean occupied = (shown[(row - viewRow) * words + (col >>> 6)] & (1L << col)) != 0;
+                paintCell(row, col, occupied ? occupiedTile : emptyTile);
+            }
+        }
+        shapePiece = null;
+    }
+
+    // Paint all the cells of the rows [from, to) of the view
+    private void paintRows(int from, int to) {
+        for (int viewIndex = from; viewIndex < to; viewIndex++) {
+            int row = viewRow + viewIndex;
+            for (int col = 0; col < cols; col++) {
+                paintCell(row, col, matrix.isOccupied(row, col) ? occupiedTile : emptyTile);
+            }
+            for (int word = 0; word < words; word++) {
+                shown[viewIndex * words + word] = matrix.rows.word(row, word);
+            }
+        }
+    }
+
+    private void paintCell(int row, int col, BufferedImage tile) {
+        g.drawImage(tile, col * Shape.CELL_SIZE, (viewRows - 1 - (row - viewRow)) * Shape.CELL_SIZE, null);
+        cellsPainted++;
+    }
+}
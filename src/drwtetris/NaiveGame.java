@@ -0,0 +1,107 @@
+package drwtetris;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * The NaiveGame class plays the lines of an input file the plainest way,
+ * as an independent reference for DiffHarness: the matrix is a list of
+ * rows of booleans, a shape falls one row at a time from the top of the
+ * stack until it would overlap a cell, and the full rows are removed from
+ * the list. It shares only the InputParser and the cells of the Pieces with
+ * the Matrix, none of its bitboard, skyline or row index, so that a bug in
+ * those shows up as a difference. It is slow, for checking only.
+ */
+public final class NaiveGame {
+    // == Define NaiveGame's properties ==
+    private final int cols;
+    // The rows of the stack, bottom first; the top row is never empty
+    private final List<boolean[]> rows = new ArrayList<>();
+
+    /**
+     * Constructor
+     * @param cols - number of columns of the matrix
+     */
+    public NaiveGame(int cols) {
+        this.cols = cols;
+    }
+
+    /**
+     * Play every line of the given input file as a new game.
+     * @param results - receives the final stack height of each line, in order
+     */
+    public void newGame(Path path, IntConsumer results) throws IOException {
+        rows.clear();
+        new InputParser(new InputParser.Listener() {
+            long line = 1;
+
+            @Override
+            public void shape(int shapeIdx, int column) {
+                drop(Piece.of(shapeIdx), column, line);
+            }
+
+            @Override
+            public void endLine() {
+                results.accept(rows.size());
+                rows.clear();
+                line++;
+            }
+        }).parseFile(path);
+    }
+
+    // Drop the piece with its leftmost cell at the given column
+    private void drop(Piece piece, int column, long line) {
+        if (column < 0 || column + piece.width() > cols) {
+            throw new IllegalArgumentException("Shape " + piece.shapeType() + " at column " + column
+                    + " does not fit " + cols + " columns on line " + line);
+        }
+        int row = rows.size();
+        while (row > 0 && fits(piece, column, row - 1)) {
+            row--;
+        }
+        for (int cell = 0; cell < piece.cellCount(); cell++) {
+            int cellRow = row + piece.cellRow(cell);
+            while (rows.size() <= cellRow) {
+                rows.add(new boolean[cols]);
+            }
+            rows.get(cellRow)[column + piece.cellCol(cell)] = true;
+        }
+
+        rows.removeIf(NaiveGame::isFull);
+        while (!rows.isEmpty() && isEmpty(rows.get(rows.size() - 1))) {
+            rows.remove(rows.size() - 1);
+        }
+    }
+
+    // Whether the piece fits with its bottom row at the given row
+    private boolean fits(Piece piece, int column, int row) {
+        for (int cell = 0; cell < piece.cellCount(); cell++) {
+            int cellRow = row + piece.cellRow(cell);
+            if (cellRow < rows.size() && rows.get(cellRow)[column + piece.cellCol(cell)]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isFull(boolean[] row) {
+        for (boolean cell : row) {
+            if (!cell) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isEmpty(boolean[] row) {
+        for (boolean cell : row) {
+            if (cell) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,143 @@
+package drwtetris;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+/**
+ * The ParallelGame class plays the lines of an input file concurrently.
+ *
+ * Every line is an independent game, so the file is split into ranges of
+ * whole lines that are played as separate tasks on a ForkJoinPool, each
+ * worker thread on its own Matrix. The results are still reported in input
+ * order. Only a bounded number of ranges is in flight at once, so memory
+ * does not grow with the size of the input.
+ */
+public class ParallelGame {
+    // == Define named constants ==
+    /** Approximate size of the range of lines played by a task (in bytes) */
+    public final static int SPLIT_SIZE = 4 << 20;
+    /** Number of ranges in flight per thread of the pool */
+    public final static int RANGES_PER_THREAD = 4;
+
+    // == Define ParallelGame's properties ==
+    private final ForkJoinPool pool;
+    // Each worker thread plays its ranges on its own Matrix
+    private final ThreadLocal<Matrix> matrices;
+
+    /**
+     * Constructor, playing on the common pool
+     */
+    public ParallelGame() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor
+     * @param pool - the pool the ranges of lines are played on
+     */
+    public ParallelGame(ForkJoinPool pool) {
+        this(pool, Matrix.COLS);
+    }
+
+    /**
+     * Constructor
+     * @param pool - the pool the ranges of lines are played on
+     * @param cols - number of columns of the matrices
+     */
+    public ParallelGame(ForkJoinPool pool, int cols) {
+        this.pool = pool;
+        this.matrices = ThreadLocal.withInitial(() -> new Matrix(cols));
+    }
+
+    /**
+     * Play every line of the given input file as a new game.
+     * @return the final stack height of each line, in order
+     */
+    public int[] newGame(String path) {
+        Heights heights = new Heights();
+        try {
+            newGame(Path.of(path), heights);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return Arrays.copyOf(heights.values, heights.size);
+    }
+
+    /**
+     * Play every line of the given input file as a new game.
+     * @param results - receives the final stack height of each line, in
+     *                input order, on the calling thread
+     */
+    public void newGame(Path path, IntConsumer results) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int maxInFlight = pool.getParallelism() * RANGES_PER_THREAD;
+            ArrayDeque<ForkJoinTask<Heights>> inFlight = new ArrayDeque<>();
+            long start = 0;
+            while (start < size || !inFlight.isEmpty()) {
+                // Keep the pool busy with the next ranges...
+                while (start < size && inFlight.size() < maxInFlight) {
+                    long end = lineEnd(channel, start + SPLIT_SIZE, size);
+                    long rangeStart = start;
+                    inFlight.add(pool.submit(() -> playRange(channel, rangeStart, end)));
+                    start = end;
+                }
+                // ...while reporting the oldest one in input order
+                Heights heights = inFlight.poll().join();
+                for (int i = 0; i < heights.size; i++) {
+                    results.accept(heights.values[i]);
+                }
+            }
+        }
+    }
+
+    // Play the lines in the byte range [start, end) of the file.
+    private Heights playRange(FileChannel channel, long start, long end) {
+        Heights heights = new Heights();
+        try {
+            matrices.get().newGame(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), heights);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return heights;
+    }
+
+    // Find the end of the line running through the given position: the
+    // position just after the next line terminator, or the end of the file.
+    private static long lineEnd(FileChannel channel, long pos, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        while (pos < size) {
+            buf.clear();
+            int count = channel.read(buf, pos);
+            for (int i = 0; i < count; i++) {
+                if (buf.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += count;
+        }
+        return size;
+    }
+
+    // The heights of the lines of a range, in order
+    private static class Heights implements IntConsumer {
+        int[] values = new int[1024];
+        int size;
+
+        @Override
+        public void accept(int height) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = height;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package drwtetris;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of an input file parsed. Its duration includes playing the
+ * lines, which happens as they are decoded.
+ */
+@Name("drwtetris.Parse")
+@Label("Input Parsed")
+@Category("DRWTetris")
+@Description("An input file decoded and played")
+@StackTrace(false)
+public class ParseEvent extends Event {
+    @Label("Path")
+    String path;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Lines")
+    long lines;
+}
@@ -0,0 +1,241 @@
+package drwtetris;
+
+import java.util.Arrays;
+
+/**
+ * The Piece class describes the geometry of a ShapeType in one of its four
+ * rotations as it is dropped into the Matrix: its cells, row bit patterns,
+ * width, height, and the bottom and top profile of each of its columns.
+ *
+ * Pieces are immutable and precomputed once, one per ShapeType and
+ * rotation, so they can be shared freely between threads. Get one via
+ * Piece.of(). Rotation 0 is the orientation the input file drops shapes in;
+ * rotation r is r quarter turns clockwise from it.
+ * Rows are numbered from the bottom of the piece up, and columns from its
+ * leftmost column, matching the Matrix.
+ */
+public final class Piece {
+
+    // The row bit patterns of each piece, from its bottom row up, with bit 0
+    //  at the leftmost column. Indexed by ShapeType ordinal.
+    private static final long[][] ROW_MASKS = {
+            { 0b110, 0b011 },         // Z
+            { 0b011, 0b110 },         // S
+            { 0b11, 0b11 },           // Q
+            { 0b1111 },               // I
+            { 0b11, 0b01, 0b01 },     // L
+            { 0b11, 0b10, 0b10 },     // J
+            { 0b010, 0b111 }          // T
+    };
+
+    /** Number of rotations of a piece */
+    public static final int ROTATIONS = 4;
+
+    // All the pieces, indexed by ShapeType ordinal and rotation
+    private static final Piece[][] PIECES = new Piece[ROW_MASKS.length][ROTATIONS];
+    // The distinct orientations of each shape, indexed by ShapeType ordinal:
+    //  the rotations with different cells (1 for Q, 2 for I, S and Z)
+    private static final Piece[][] ORIENTATIONS = new Piece[ROW_MASKS.length][];
+    static {
+        for (Shape.ShapeType shapeType : Shape.ShapeType.values()) {
+            int shapeIdx = shapeType.ordinal();
+            Piece[] rotations = PIECES[shapeIdx];
+            long[] rowMasks = ROW_MASKS[shapeIdx];
+            for (int rotation = 0; rotation < ROTATIONS; rotation++) {
+                rotations[rotation] = new Piece(shapeType, rotation, rowMasks);
+                rowMasks = rotateRight(rowMasks);
+            }
+            for (int rotation = 0; rotation < ROTATIONS; rotation++) {
+                rotations[rotation].right = rotations[(rotation + 1) % ROTATIONS];
+                rotations[rotation].left = rotations[(rotation + ROTATIONS - 1) % ROTATIONS];
+            }
+            // The rotations repeat after 1, 2 or 4 quarter turns
+            int period = 1;
+            while (period < ROTATIONS && !Arrays.equals(rotations[period].rowMasks, rotations[0].rowMasks)) {
+                period++;
+            }
+            ORIENTATIONS[shapeIdx] = Arrays.copyOf(rotations, period);
+        }
+    }
+
+    // == Define Piece's properties ==
+    // Property 1: The shape type described, and its rotation
+    private final Shape.ShapeType shapeType;
+    private final int rotation;
+    // Property 2: One bit pattern per row, bottom row first
+    private final long[] rowMasks;
+    // Property 3: The columns and rows spanned
+    private final int width, height;
+    // Property 4: Per column, the row of the lowest cell (bottom) and one
+    //  above the row of the highest cell (top)
+    private final int[] bottom, top;
+    // Property 5: The column and row of each cell, bottom row first
+    private final int[] cellCols, cellRows;
+    // Property 6: The piece turned a quarter clockwise (right) and
+    //  anticlockwise (left). Set once, when the class is initialised.
+    private Piece right, left;
+
+    // Private constructor, pieces are only obtained via Piece.of()
+    private Piece(Shape.ShapeType shapeType, int rotation, long[] rowMasks) {
+        this.shapeType = shapeType;
+        this.rotation = rotation;
+        this.rowMasks = rowMasks.clone();
+        long allRows = 0;
+        int cells = 0;
+        for (long mask : rowMasks) {
+            allRows |= mask;
+            cells += Long.bitCount(mask);
+        }
+        this.width = 64 - Long.numberOfLeadingZeros(allRows);
+        this.height = rowMasks.length;
+
+        this.bottom = new int[width];
+        this.top = new int[width];
+        for (int col = 0; col < width; col++) {
+            bottom[col] = -1;
+            for (int row = 0; row < height; row++) {
+                if ((rowMasks[row] & (1L << col)) != 0) {
+                    if (bottom[col] < 0) {
+                        bottom[col] = row;
+                    }
+                    top[col] = row + 1;
+                }
+            }
+        }
+
+        this.cellCols = new int[cells];
+        this.cellRows = new int[cells];
+        int cell = 0;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                if ((rowMasks[row] & (1L << col)) != 0) {
+                    cellCols[cell] = col;
+                    cellRows[cell] = row;
+                    cell++;
+                }
+            }
+        }
+    }
+
+    // The row bit patterns turned a quarter clockwise: the cell at column c
+    //  and row r moves to column r and row (width - 1 - c).
+    private static long[] rotateRight(long[] rowMasks) {
+        int width = 0;
+        for (long mask : rowMasks) {
+            width = Math.max(width, 64 - Long.numberOfLeadingZeros(mask));
+        }
+        long[] rotated = new long[width];
+        for (int row = 0; row < rowMasks.length; row++) {
+            for (int col = 0; col < width; col++) {
+                if ((rowMasks[row] & (1L << col)) != 0) {
+                    rotated[width - 1 - col] |= 1L << row;
+                }
+            }
+        }
+        return rotated;
+    }
+
+    /**
+     * Get the piece of the given shape type, in the drop orientation.
+     */
+    public static Piece of(Shape.ShapeType shapeType) {
+        return PIECES[shapeType.ordinal()][0];
+    }
+
+    /**
+     * Get the piece of the given ShapeType ordinal, in the drop orientation.
+     */
+    public static Piece of(int shapeIdx) {
+        return PIECES[shapeIdx][0];
+    }
+
+    /**
+     * Get the piece of the given shape type, turned rotation quarters
+     * clockwise from the drop orientation (any int, taken modulo 4).
+     */
+    public static Piece of(Shape.ShapeType shapeType, int rotation) {
+        return PIECES[shapeType.ordinal()][rotation & (ROTATIONS - 1)];
+    }
+
+    /**
+     * The distinct orientations of the shape of the given ShapeType ordinal,
+     * by rotation: the rotations of a Q are all the same, those of an I, S
+     * or Z repeat after two quarter turns. Shared, not to be modified.
+     */
+    static Piece[] orientations(int shapeIdx) {
+        return ORIENTATIONS[shapeIdx];
+    }
+
+    public Shape.ShapeType shapeType() {
+        return shapeType;
+    }
+
+    /** Number of quarter turns clockwise from the drop orientation, in [0, 3] */
+    public int rotation() {
+        return rotation;
+    }
+
+    /** The piece turned a quarter clockwise */
+    public Piece rotateRight() {
+        return right;
+    }
+
+    /** The piece turned a quarter anticlockwise */
+    public Piece rotateLeft() {
+        return left;
+    }
+
+    /** Number of columns spanned */
+    public int width() {
+        return width;
+    }
+
+    /** Number of rows spanned */
+    public int height() {
+        return height;
+    }
+
+    /** The bit pattern of the given row (0 = bottom), bit 0 at the leftmost column */
+    public long rowMask(int row) {
+        return rowMasks[row];
+    }
+
+    /** The row of the lowest cell in the given column */
+    public int bottom(int col) {
+        return bottom[col];
+    }
+
+    /** One above the row of the highest cell in the given column */
+    public int top(int col) {
+        return top[col];
+    }
+
+    /** Number of cells (4 for all tetriminoes) */
+    public int cellCount() {
+        return cellCols.length;
+    }
+
+    /** The column of the given cell */
+    public int cellCol(int cell) {
+        return cellCols[cell];
+    }
+
+    /** The row of the given cell */
+    public int cellRow(int cell) {
+        return cellRows[cell];
+    }
+
+    /**
+     * The row the piece comes to rest on when dropped with its leftmost
+     * column at the given column, onto a stack with the given column heights.
+     * The piece rests on the column where the stack reaches the highest
+     * relative to the piece's lowest cell in that column.
+     */
+    public int landingRow(int[] heights, int column) {
+        int landingRow = 0;
+        for (int col = 0; col < width; col++) {
+            landingRow = Math.max(landingRow, heights[column + col] - bottom[col]);
+        }
+        return landingRow;
+    }
+}
@@ -0,0 +1,49 @@
+package drwtetris;
+
+/**
+ * A Placement is where PlacementSearch advises to drop a shape: its
+ * rotation and leftmost column, with the score of the best board reached
+ * from there.
+ */
+public final class Placement {
+    // == Define Placement's properties ==
+    private final Piece piece;
+    private final int column;
+    private final double score;
+
+    Placement(Piece piece, int column, double score) {
+        this.piece = piece;
+        this.column = column;
+        this.score = score;
+    }
+
+    /** The shape placed */
+    public Shape.ShapeType getShapeType() {
+        return piece.shapeType();
+    }
+
+    /** Number of quarter turns clockwise from the drop orientation */
+    public int getRotation() {
+        return piece.rotation();
+    }
+
+    /** The leftmost column of the shape once rotated */
+    public int getColumn() {
+        return column;
+    }
+
+    /** The shape, rotated */
+    public Piece getPiece() {
+        return piece;
+    }
+
+    /** The score of the best board the search reached from this placement */
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return piece.shapeType() + "/" + piece.rotation() + "@" + column + " (" + score + ")";
+    }
+}
@@ -0,0 +1,188 @@
+package drwtetris;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The PlacementSearch class finds where to drop the next shape: it tries
+ * every rotation and column of each of the next shapes in turn, scores the
+ * boards reached once all are placed with a BoardEvaluator, and advises the
+ * placement of the first shape leading to the best board.
+ *
+ * The placements of the first shape are searched in parallel on a
+ * ForkJoinPool, each on its own SearchBoards. A TranspositionTable shared by
+ * all the threads records the scores of the positions searched, keyed by a
+ * hash of the board, the rows cleared so far and the shapes still to place,
+ * so that a position reached by several orders of placements is searched
+ * once. The table lives as long as the PlacementSearch, so it also serves
+ * consecutive searches over the same shapes.
+ */
+public class PlacementSearch {
+    // == Define named constants ==
+    /** Default log2 of the number of entries of the transposition table */
+    public final static int DEFAULT_TABLE_BITS = 20;
+
+    // == Define PlacementSearch's properties ==
+    private final ForkJoinPool pool;
+    private final BoardEvaluator evaluator;
+    private final TranspositionTable table;
+    // Number of placements tried so far
+    private final LongAdder evaluated = new LongAdder();
+
+    /**
+     * Constructor, searching on the common pool with the default evaluator
+     */
+    public PlacementSearch() {
+        this(ForkJoinPool.commonPool(), BoardEvaluator.DEFAULT, DEFAULT_TABLE_BITS);
+    }
+
+    /**
+     * Constructor
+     * @param pool - the pool the placements are searched on
+     * @param evaluator - scores the boards reached
+     * @param tableBits - log2 of the number of entries of the transposition table
+     */
+    public PlacementSearch(ForkJoinPool pool, BoardEvaluator evaluator, int tableBits) {
+        this.pool = pool;
+        this.evaluator = evaluator;
+        this.table = new TranspositionTable(tableBits);
+    }
+
+    /**
+     * Find the best placement of shapes[0] on the matrix of the session,
+     * looking ahead at the next shapes.
+     * @param shapes - the next shapes, in the order they will be dropped
+     */
+    public Placement search(GameSession session, Shape.ShapeType... shapes) {
+        return search(session.matrix(), shapes);
+    }
+
+    /**
+     * Find the best placement of shapes[0] on the matrix, looking ahead at
+     * the next shapes. The matrix is not changed.
+     * @param shapes - the next shapes, in the order they will be dropped
+     */
+    public Placement search(Matrix matrix, Shape.ShapeType... shapes) {
+        if (shapes.length == 0) {
+            throw new IllegalArgumentException("No shape to place");
+        }
+        SearchBoard root = SearchBoard.of(matrix);
+
+        // The key of the shapes still to place from each depth on
+        long[] shapeKeys = new long[shapes.length + 1];
+        for (int depth = shapes.length - 1; depth >= 0; depth--) {
+            shapeKeys[depth] = (shapeKeys[depth + 1] + shapes[depth].ordinal() + 1) * 0x9E3779B97F4A7C15L;
+        }
+
+        // One task per placement of the first shape
+        Piece[] orientations = Piece.orientations(shapes[0].ordinal());
+        int count = 0;
+        for (Piece piece : orientations) {
+            count += root.getCols() - piece.width() + 1;
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException("Shape " + shapes[0] + " does not fit a "
+                    + root.getCols() + " columns matrix");
+        }
+        Branch[] branches = new Branch[count];
+        int branch = 0;
+        for (Piece piece : orientations) {
+            for (int column = 0; column + piece.width() <= root.getCols(); column++) {
+                branches[branch++] = new Branch(root, shapes, shapeKeys, piece, column);
+            }
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(branches);
+            }
+        });
+
+        // The best score, the first placement in case of a tie
+        Branch best = branches[0];
+        for (Branch candidate : branches) {
+            if (candidate.score > best.score) {
+                best = candidate;
+            }
+        }
+        return new Placement(best.piece, best.column, best.score);
+    }
+
+    /**
+     * Number of placements tried by all the searches so far.
+     */
+    public long getEvaluated() {
+        return evaluated.sum();
+    }
+
+    /**
+     * Forget the positions searched so far.
+     */
+    public void clearTable() {
+        table.clear();
+    }
+
+    // The search from one placement of the first shape
+    private class Branch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final SearchBoard root;
+        final Shape.ShapeType[] shapes;
+        final long[] shapeKeys;
+        final Piece piece;
+        final int column;
+        // The boards of each depth, board[d] once d shapes are placed
+        SearchBoard[] boards;
+        long placements;
+        double score;
+
+        Branch(SearchBoard root, Shape.ShapeType[] shapes, long[] shapeKeys, Piece piece, int column) {
+            this.root = root;
+            this.shapes = shapes;
+            this.shapeKeys = shapeKeys;
+            this.piece = piece;
+            this.column = column;
+        }
+
+        @Override
+        protected void compute() {
+            boards = new SearchBoard[shapes.length + 1];
+            for (int depth = 1; depth <= shapes.length; depth++) {
+                boards[depth] = new SearchBoard(root.getCols());
+            }
+            boards[1].copyFrom(root);
+            boards[1].place(piece, column);
+            placements = 1;
+            score = search(1);
+            evaluated.add(placements);
+        }
+
+        // The best score reachable from boards[depth]
+        private double search(int depth) {
+            SearchBoard board = boards[depth];
+            if (depth == shapes.length) {
+                return evaluator.evaluate(board);
+            }
+            long key = board.hash() ^ shapeKeys[depth] ^ (board.getLinesCleared() * 0xD6E8FEB86659FD93L);
+            double best = table.get(key);
+            if (best == best) {  // not NaN: known
+                return best;
+            }
+
+            best = Double.NEGATIVE_INFINITY;
+            SearchBoard next = boards[depth + 1];
+            for (Piece piece : Piece.orientations(shapes[depth].ordinal())) {
+                for (int column = 0; column + piece.width() <= board.getCols(); column++) {
+                    next.copyFrom(board);
+                    next.place(piece, column);
+                    placements++;
+                    best = Math.max(best, search(depth + 1));
+                }
+            }
+            table.put(key, best);
+            return best;
+        }
+    }
+}
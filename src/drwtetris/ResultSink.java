@@ -0,0 +1,71 @@
+package drwtetris;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+/**
+ * A ResultSink receives the result of each line (game) of the input: the
+ * final stack height, in input order.
+ * Results are buffered; flush() and close() write out whatever is left.
+ */
+public interface ResultSink extends IntConsumer, Flushable, Closeable {
+
+    /**
+     * Receive the final stack height of the next line.
+     */
+    @Override
+    void accept(int height);
+
+    /**
+     * A sink writing one height per line to the standard output.
+     * Closing it flushes, but leaves the standard output open.
+     */
+    static ResultSink toStdout() {
+        return new BufferedResultSink(new FileOutputStream(FileDescriptor.out), false);
+    }
+
+    /**
+     * A sink writing one height per line to the given file.
+     */
+    static ResultSink toFile(Path path) throws IOException {
+        return new BufferedResultSink(Files.newOutputStream(path), true);
+    }
+
+    /**
+     * A sink appending to the results already in the given file, after the
+     * first keep of them; any result after those is dropped. Used to resume
+     * a game from a Checkpoint.
+     * @throws IOException if the file holds less than keep results
+     */
+    static ResultSink appendTo(Path path, long keep) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocate(BufferedResultSink.BUFFER_SIZE);
+            long end = 0;  // the end of the results kept
+            long lines = 0;
+            while (lines < keep) {
+                buf.clear();
+                if (channel.read(buf, end) < 0) {
+                    throw new IOException(path + " holds only " + lines + " results, " + keep + " expected");
+                }
+                buf.flip();
+                while (buf.hasRemaining() && lines < keep) {
+                    if (buf.get() == '\n') {
+                        lines++;
+                    }
+                }
+                end += buf.position();
+            }
+            channel.truncate(end);
+        }
+        return new BufferedResultSink(Files.newOutputStream(path, StandardOpenOption.APPEND), true);
+    }
+}
@@ -0,0 +1,55 @@
+package drwtetris;
+
+/**
+ * The RowOps class tests packed rows of the bitboard a word at a time
+ * (64 cells per step).
+ *
+ * For wide rows, forWords() picks the VectorRowOps subclass, that tests
+ * several words per instruction with the Vector API, when the incubator
+ * module is enabled (java --add-modules jdk.incubator.vector). Otherwise,
+ * this scalar implementation is used.
+ */
+public class RowOps {
+    // == Define named constants ==
+    /** Rows of fewer words are always tested with the scalar implementation */
+    public final static int MIN_VECTOR_WORDS = 8;
+
+    private static final RowOps SCALAR = new RowOps();
+    // The Vector API implementation, null if the module is not enabled
+    private static final RowOps VECTOR = loadVectorRowOps();
+
+    /**
+     * Get the implementation for rows of the given number of words.
+     */
+    public static RowOps forWords(int words) {
+        return words >= MIN_VECTOR_WORDS && VECTOR != null ? VECTOR : SCALAR;
+    }
+
+    /**
+     * Check if the row starting at words[offset] is full: all of its count
+     * words have all their bits set, but the last word that must equal
+     * lastWordFull (the cells beyond the width of the row are never set).
+     */
+    public boolean isFull(long[] words, int offset, int count, long lastWordFull) {
+        int last = offset + count - 1;
+        for (int i = offset; i < last; i++) {
+            if (words[i] != -1L) {
+                return false;
+            }
+        }
+        return words[last] == lastWordFull;
+    }
+
+    // VectorRowOps is only loaded by name, so nothing fails to link without
+    // the incubator module.
+    private static RowOps loadVectorRowOps() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (RowOps) Class.forName("drwtetris.VectorRowOps").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package drwtetris;
+
+import java.util.Arrays;
+
+/**
+ * The RowStore class holds the rows of the Matrix bitboard, for a stack of
+ * unbounded height. A row of cols cells is packed into ceil(cols / 64)
+ * consecutive words; bit (col % 64) of word (col / 64) is set if the cell is
+ * occupied.
+ *
+ * Rows are kept in fixed-size chunks that are allocated on demand as the
+ * stack grows, and released again once the stack drops below them, so the
+ * memory held tracks the live stack height rather than the number of shapes
+ * dropped. Growing never copies rows: only the (small) chunk directory is
+ * enlarged.
+ *
+ * A row is reached through a row index mapping its logical row number to the
+ * physical slot holding it. Removing rows only shifts the index down; the
+ * slots of the removed rows are emptied and recycled as the top rows, so no
+ * row above is copied.
+ */
+public class RowStore {
+    // == Define named constants ==
+    /** Number of rows in a chunk is 2^CHUNK_BITS */
+    public final static int CHUNK_BITS = 6;
+    /** Number of rows in a chunk */
+    public final static int CHUNK_ROWS = 1 << CHUNK_BITS;
+    private final static int CHUNK_MASK = CHUNK_ROWS - 1;
+    /** Number of released chunks kept for reuse */
+    public final static int SPARE_CHUNKS = 4;
+
+    // == Define RowStore's properties ==
+    // Property 1: The width of a row, in cells and in words, and the bit
+    //  pattern of the last word of a full row
+    private final int cols;
+    private final int words;
+    private final long lastWordFull;
+    // Property 2: The full-row test for this width
+    private final RowOps rowOps;
+    // Property 3: The chunk directory. chunks[i] holds slots
+    //  [i * CHUNK_ROWS, (i + 1) * CHUNK_ROWS), null if not allocated.
+    private long[][] chunks = new long[4][];
+    // Property 4: Number of allocated chunks, always the first ones.
+    private int chunkCount;
+    // Property 5: The row index. index[row] is the slot holding the row; over
+    //  the rows backed by allocated chunks it is a permutation of their slots.
+    private int[] index = new int[4 * CHUNK_ROWS];
+    // Property 6: A few released chunks kept aside (all zero), so that a
+    //  stack that hovers around a chunk boundary, or a matrix reused for
+    //  game after game, does not allocate on every crossing.
+    private final long[][] spares = new long[SPARE_CHUNKS][];
+    private int spareCount;
+    // The slots of the rows being removed, see removeFullRows
+    private int[] removed = new int[8];
+
+    /**
+     * Constructor
+     * @param cols - number of cells in a row
+     */
+    public RowStore(int cols) {
+        if (cols <= 0) {
+            throw new IllegalArgumentException("cols must be positive: " + cols);
+        }
+        this.cols = cols;
+        this.words = (cols + 63) >>> 6;
+        this.lastWordFull = -1L >>> (words * 64 - cols);
+        this.rowOps = RowOps.forWords(words);
+    }
+
+    /** Number of cells in a row */
+    public int cols() {
+        return cols;
+    }
+
+    /** Number of words in a row */
+    public int words() {
+        return words;
+    }
+
+    /**
+     * Get a word of the row at the given index.
+     * @return the packed word, 0 if the row was never written
+     */
+    public long word(int row, int word) {
+        if (row >= capacity()) {
+            return 0L;
+        }
+        int slot = index[row];
+        return chunks[slot >>> CHUNK_BITS][(slot & CHUNK_MASK) * words + word];
+    }
+
+    /**
+     * Check if the cell at the given row and column is occupied.
+     */
+    public boolean isSet(int row, int col) {
+        return (word(row, col >>> 6) & (1L << col)) != 0;
+    }
+
+    /**
+     * Check if all the cells of the row are occupied.
+     */
+    public boolean isFull(int row) {
+        if (row >= capacity()) {
+            return false;
+        }
+        int slot = index[row];
+        return rowOps.isFull(chunks[slot >>> CHUNK_BITS], (slot & CHUNK_MASK) * words, words, lastWordFull);
+    }
+
+    /**
+     * OR the given bit pattern into a word of a row, allocating its chunk if
+     * needed.
+     */
+    public void or(int row, int word, long mask) {
+        if (row >= capacity()) {
+            grow(row >>> CHUNK_BITS);
+        }
+        int slot = index[row];
+        chunks[slot >>> CHUNK_BITS][(slot & CHUNK_MASK) * words + word] |= mask;
+    }
+
+    /**
+     * OR the given bit pattern into a row, with bit 0 at the given column.
+     * The pattern may straddle two words.
+     */
+    public void orBits(int row, int col, long bits) {
+        int word = col >>> 6;
+        int shift = col & 63;
+        or(row, word, bits << shift);
+        if (shift != 0 && (bits >>> (64 - shift)) != 0) {
+            or(row, word + 1, bits >>> (64 - shift));
+        }
+    }
+
+    /**
+     * Check if any cell of the given bit pattern, with bit 0 at the given
+     * column, is occupied in the row. The pattern may straddle two words.
+     */
+    public boolean overlaps(int row, int col, long bits) {
+        int word = col >>> 6;
+        int shift = col & 63;
+        if ((word(row, word) & (bits << shift)) != 0) {
+            return true;
+        }
+        return shift != 0 && (bits >>> (64 - shift)) != 0
+                && (word(row, word + 1) & (bits >>> (64 - shift))) != 0;
+    }
+
+    /**
+     * Remove the full rows in the range [fromRow, toRow), moving down the
+     * rows above them, up to the given height. The rows from height - n up
+     * shall be empty afterwards, with n the number of rows removed.
+     * @return the number of rows removed
+     */
+    public int removeFullRows(int fromRow, int toRow, int height) {
+        int n = 0;
+        // Shift the index down over the removed rows, keeping their slots aside
+        for (int row = fromRow; row < height; row++) {
+            if (n == 0 && row >= toRow) {
+                return 0;
+            }
+            int slot = index[row];
+            if (row < toRow && isFull(row)) {
+                if (n == removed.length) {
+                    removed = Arrays.copyOf(removed, n * 2);
+                }
+                removed[n++] = slot;
+            } else {
+                index[row - n] = slot;
+            }
+        }
+        // Empty the slots of the removed rows and recycle them as the top rows
+        for (int i = 0; i < n; i++) {
+            int slot = removed[i];
+            int offset = (slot & CHUNK_MASK) * words;
+            Arrays.fill(chunks[slot >>> CHUNK_BITS], offset, offset + words, 0L);
+            index[height - n + i] = slot;
+        }
+        if (n > 0) {
+            release(height - n);
+        }
+        return n;
+    }
+
+    /**
+     * Clear all the rows and release their chunks.
+     */
+    public void clear() {
+        // The chunks kept as spares are emptied as they are released
+        release(0);
+    }
+
+    /**
+     * Copy the rows below the given height into dst, words() words per row.
+     */
+    public void copyTo(long[] dst, int height) {
+        for (int row = 0; row < height; row++) {
+            int slot = index[row];
+            System.arraycopy(chunks[slot >>> CHUNK_BITS], (slot & CHUNK_MASK) * words,
+                    dst, row * words, words);
+        }
+    }
+
+    /**
+     * Load the rows below the given height from src, words() words per row,
+     * into an empty store.
+     */
+    public void load(long[] src, int height) {
+        if (height > 0) {
+            grow((height - 1) >>> CHUNK_BITS);
+        }
+        for (int row = 0; row < height; row++) {
+            int slot = index[row];
+            System.arraycopy(src, row * words, chunks[slot >>> CHUNK_BITS],
+                    (slot & CHUNK_MASK) * words, words);
+        }
+    }
+
+    /**
+     * The number of rows currently backed by allocated chunks.
+     */
+    public int capacity() {
+        return chunkCount << CHUNK_BITS;
+    }
+
+    // Allocate chunks up to and including the given one. The rows of a new
+    //  chunk are held in its own slots.
+    private void grow(int chunk) {
+        if (chunk >= chunks.length) {
+            int length = Math.max(chunks.length * 2, chunk + 1);
+            chunks = Arrays.copyOf(chunks, length);
+            index = Arrays.copyOf(index, length << CHUNK_BITS);
+        }
+        while (chunkCount <= chunk) {
+            chunks[chunkCount] = spareCount > 0 ? spares[--spareCount] : new long[CHUNK_ROWS * words];
+            for (int slot = chunkCount << CHUNK_BITS; slot < (chunkCount + 1) << CHUNK_BITS; slot++) {
+                index[slot] = slot;
+            }
+            chunkCount++;
+        }
+    }
+
+    // Release the chunks lying entirely at or above the given height. Rows
+    //  below are first moved out of the released slots, into the slots of the
+    //  (empty) rows above that are kept.
+    private void release(int height) {
+        int used = (height + CHUNK_MASK) >>> CHUNK_BITS;
+        if (chunkCount <= used) {
+            return;
+        }
+        int capacity = used << CHUNK_BITS;
+        int free = capacity;
+        for (int row = 0; row < capacity; row++) {
+            int slot = index[row];
+            if (slot >= capacity) {
+                while (index[free] >= capacity) {
+                    free++;
+                }
+                int kept = index[free];
+                System.arraycopy(chunks[slot >>> CHUNK_BITS], (slot & CHUNK_MASK) * words,
+                        chunks[kept >>> CHUNK_BITS], (kept & CHUNK_MASK) * words, words);
+                index[row] = kept;
+                index[free++] = slot;
+            }
+        }
+        while (chunkCount > used) {
+            long[] rows = chunks[--chunkCount];
+            chunks[chunkCount] = null;
+            if (spareCount < SPARE_CHUNKS) {
+                // The rows moved out may have left cells behind
+                Arrays.fill(rows, 0L);
+                spares[spareCount++] = rows;
+            }
+        }
+    }
+}
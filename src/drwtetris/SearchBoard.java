@@ -0,0 +1,198 @@
+package drwtetris;
+
+import java.util.Arrays;
+
+/**
+ * A SearchBoard is the light copy of a Matrix played on by PlacementSearch:
+ * one long per row and the skyline, so that a board is copied and a piece
+ * placed on it in a few dozen instructions. The boards are only as wide
+ * as a word, i.e. up to 64 columns.
+ *
+ * BoardEvaluators read the boards through the getters. Row 0 is the bottom
+ * row, as in the Matrix.
+ */
+public final class SearchBoard {
+    // == Define named constants ==
+    /** Widest board searched */
+    public final static int MAX_COLS = 64;
+
+    // == Define SearchBoard's properties ==
+    private final int cols;
+    // The rows, bit col set if the cell is occupied; zero from height up
+    private long[] rows = new long[32];
+    // The skyline and stack height, as Matrix.heights and Matrix.height
+    private final int[] heights;
+    private int height;
+    // Number of occupied cells
+    private int cells;
+    // Rows cleared by the placements since the board was taken
+    private int linesCleared;
+
+    SearchBoard(int cols) {
+        if (cols <= 0 || cols > MAX_COLS) {
+            throw new IllegalArgumentException("Boards of " + cols + " columns are not searched, "
+                    + MAX_COLS + " at most");
+        }
+        this.cols = cols;
+        this.heights = new int[cols];
+    }
+
+    /**
+     * A board holding the contents of the given matrix.
+     */
+    static SearchBoard of(Matrix matrix) {
+        SearchBoard board = new SearchBoard(matrix.getCols());
+        board.reserve(matrix.height);
+        for (int row = 0; row < matrix.height; row++) {
+            board.rows[row] = matrix.rows.word(row, 0);
+            board.cells += Long.bitCount(board.rows[row]);
+        }
+        System.arraycopy(matrix.heights, 0, board.heights, 0, board.cols);
+        board.height = matrix.height;
+        return board;
+    }
+
+    /**
+     * Make this board a copy of the other one, of the same width.
+     */
+    void copyFrom(SearchBoard other) {
+        reserve(other.height);
+        System.arraycopy(other.rows, 0, rows, 0, other.height);
+        if (height > other.height) {
+            Arrays.fill(rows, other.height, height, 0L);
+        }
+        System.arraycopy(other.heights, 0, heights, 0, cols);
+        height = other.height;
+        cells = other.cells;
+        linesCleared = other.linesCleared;
+    }
+
+    /**
+     * Drop the piece with its leftmost column at the given column, which
+     * shall fit, and clear the rows it fills.
+     * @return the number of rows cleared
+     */
+    int place(Piece piece, int column) {
+        int landingRow = piece.landingRow(heights, column);
+        int top = landingRow + piece.height();
+        reserve(top);
+        int removed = place(rows, 0, heights, 0, cols, height, piece, column, landingRow);
+        height = removed > 0 ? stackHeight(heights, 0, cols) : Math.max(height, top);
+        cells += piece.cellCount() - removed * cols;
+        linesCleared += removed;
+        return removed;
+    }
+
+    /**
+     * Place the piece on a board held in slices of arrays, as SearchBoards
+     * and BoardArenas hold theirs: its rows from rows[rowBase], zero from
+     * the given stack height up, and its skyline from heights[heightBase].
+     * The piece lands on landingRow (see Piece.landingRow), where the rows
+     * shall hold it, and the rows it fills are cleared.
+     * @return the number of rows cleared; the stack height is then
+     *         stackHeight() if any, the top of the piece or the stack height
+     *         given otherwise, whichever is higher
+     */
+    static int place(long[] rows, int rowBase, int[] heights, int heightBase, int cols, int height,
+                     Piece piece, int column, int landingRow) {
+        int top = landingRow + piece.height();
+        for (int pieceRow = 0; pieceRow < piece.height(); pieceRow++) {
+            rows[rowBase + landingRow + pieceRow] |= piece.rowMask(pieceRow) << column;
+        }
+        for (int pieceCol = 0; pieceCol < piece.width(); pieceCol++) {
+            heights[heightBase + column + pieceCol] = landingRow + piece.top(pieceCol);
+        }
+        height = Math.max(height, top);
+
+        // Only the rows the piece landed on can have become full
+        long fullRow = -1L >>> (64 - cols);
+        int removed = 0;
+        for (int row = rowBase + landingRow; row < rowBase + top; row++) {
+            if (rows[row] == fullRow) {
+                removed++;
+            } else if (removed > 0) {
+                rows[row - removed] = rows[row];
+            }
+        }
+        if (removed > 0) {
+            System.arraycopy(rows, rowBase + top, rows, rowBase + top - removed, height - top);
+            Arrays.fill(rows, rowBase + height - removed, rowBase + height, 0L);
+            // As in Matrix.clearLines
+            for (int col = 0; col < cols; col++) {
+                int colHeight = heights[heightBase + col] - removed;
+                while (colHeight > 0 && (rows[rowBase + colHeight - 1] & (1L << col)) == 0) {
+                    colHeight--;
+                }
+                heights[heightBase + col] = colHeight;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * The stack height of a skyline held from heights[heightBase].
+     */
+    static int stackHeight(int[] heights, int heightBase, int cols) {
+        int height = 0;
+        for (int col = 0; col < cols; col++) {
+            height = Math.max(height, heights[heightBase + col]);
+        }
+        return height;
+    }
+
+    /**
+     * A 64-bit hash of the cells of the board.
+     */
+    long hash() {
+        long hash = height * 0x9E3779B97F4A7C15L;
+        for (int row = 0; row < height; row++) {
+            hash = Long.rotateLeft(hash ^ rows[row], 27) * 0xC2B2AE3D27D4EB4FL;
+        }
+        return hash ^ (hash >>> 31);
+    }
+
+    private void reserve(int rowCount) {
+        if (rowCount > rows.length) {
+            rows = Arrays.copyOf(rows, Math.max(rows.length * 2, rowCount));
+        }
+    }
+
+    /** Number of columns */
+    public int getCols() {
+        return cols;
+    }
+
+    /** The height of the stack */
+    public int getHeight() {
+        return height;
+    }
+
+    /** One above the topmost occupied cell of the column, 0 if it is empty */
+    public int getColumnHeight(int col) {
+        return heights[col];
+    }
+
+    /** The cells of a row, bit col set if the cell is occupied */
+    public long getRow(int row) {
+        return row < height ? rows[row] : 0L;
+    }
+
+    /** Number of occupied cells */
+    public int getCells() {
+        return cells;
+    }
+
+    /** Number of empty cells below the top of their column */
+    public int getHoles() {
+        int holes = -cells;
+        for (int col = 0; col < cols; col++) {
+            holes += heights[col];
+        }
+        return holes;
+    }
+
+    /** Number of rows cleared by the placements searched so far */
+    public int getLinesCleared() {
+        return linesCleared;
+    }
+}
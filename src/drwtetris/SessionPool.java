@@ -0,0 +1,79 @@
+package drwtetris;
+
+import java.util.ArrayDeque;
+
+/**
+ * The SessionPool class hands out GameSessions and takes them back when
+ * they are closed, so that many short or concurrent games reuse the same
+ * few matrices instead of allocating new ones. An idle session holds an
+ * empty matrix: its skyline, and the up to RowStore.SPARE_CHUNKS chunks of
+ * rows kept for its next game.
+ *
+ * The pool is thread-safe. Up to maxIdle sessions are kept; sessions closed
+ * beyond that are left to the garbage collector.
+ */
+public class SessionPool {
+    // == Define named constants ==
+    /** Default maximum number of idle sessions kept */
+    public final static int DEFAULT_MAX_IDLE = 1024;
+
+    // == Define SessionPool's properties ==
+    private final int cols;
+    private final int maxIdle;
+    private final ArrayDeque<GameSession> idle = new ArrayDeque<>();
+
+    /**
+     * Constructor, for sessions on matrices of the default width
+     */
+    public SessionPool() {
+        this(Matrix.COLS, DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * Constructor
+     * @param cols - number of columns of the matrices
+     * @param maxIdle - maximum number of idle sessions kept
+     */
+    public SessionPool(int cols, int maxIdle) {
+        this.cols = cols;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Get a session on an empty matrix, to be closed once the game is over.
+     */
+    public GameSession acquire() {
+        GameSession session;
+        synchronized (idle) {
+            session = idle.pollFirst();
+            if (session != null) {
+                session.idle = false;
+            }
+        }
+        return session != null ? session : new GameSession(new Matrix(cols), this);
+    }
+
+    /**
+     * Number of idle sessions.
+     */
+    public int getIdle() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    // Take a closed session back
+    void release(GameSession session) {
+        synchronized (idle) {
+            if (session.idle) {
+                return;  // closed twice
+            }
+            session.idle = true;
+            session.reset();
+            if (idle.size() < maxIdle) {
+                // Most recently used first: its memory is the likeliest cached
+                idle.addFirst(session);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package drwtetris;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.util.Random;
+
+/**
+ * The Shape class models the falling blocks (or Tetrimino) in the Tetris game.
+ * This class uses the "Singleton" design pattern. To get a new (random) shape,
+ * call static method Shape.newShape().
+ * The geometry of each ShapeType is held by its immutable Piece; the
+ * singleton only adds the position of the falling shape.
+ *
+ * A Shape is defined and encapsulated inside the Matrix class.
+ */
+public class Shape {
+
+
+    public enum ShapeType {
+        Z, S, Q, I,L,
+        J, T
+    }
+    // == Define named constants ==
+    /** The width and height of a cell of the Shape (in pixels) */
+    public final static int CELL_SIZE = 32;
+
+    // == Singleton Pattern: Get an instance via Shape.newShape() ==
+    // Singleton instance (class variable)
+    private static Shape shape;
+
+    // Private constructor, cannot be called outside this class
+    private Shape() { }
+
+    // == Define Shape's properties ==
+    // A shape is defined by its Piece (its current rotation), with its
+    //   top-left corner at the (x, y) of the Matrix: column x, and row y
+    //   for its top row, rows being numbered upwards.
+    // All variables are "package" visible
+
+    ShapeType shapeType;
+    int leftMostIndex;
+    // Property 1: Top-left corner (x, y) of this Shape on the Matrix
+    int x, y;
+    // Property 2: The immutable geometry of the shape type
+    Piece piece;
+    // Property 3: The rows and columns for this Shape. Although they can be obtained
+    //  from piece, they are defined here for efficiency.
+    int maxRows, maxCols;
+    // Property 4: Array index for colors and maps
+    int shapeIdx;
+    // For ease of undo rotation, the piece before the rotation is saved here.
+    private Piece pieceSaved;
+
+    // Each shape has its own color, indexed by ShapeType ordinal
+    private static final Color[] SHAPES_COLOR = {
+            new Color(245, 45, 65),  // Z (Red #F52D41)
+            Color.GREEN,  // S
+            Color.YELLOW, // Q (O)
+            Color.CYAN,   // I
+            Color.ORANGE, // L
+            new Color(76, 181, 245), // J (Blue #4CB5F5)
+            Color.PINK    // T (Purple)
+    };
+
+    // For generating new random shape
+    private static final Random rand = new Random();
+
+    /**
+     * Static factory method to get a newly initialized random
+     *   singleton Shape.
+     *
+     * @return the singleton instance
+     */
+    public static Shape newShape(String letter, int number) {
+        return newShape(ShapeType.values()[InputParser.shapeCode(letter.charAt(0))], number);
+    }
+
+    /**
+     * Static factory method to get the singleton Shape initialized to the
+     *   given shape type, at the given leftmost column.
+     *
+     * @return the singleton instance
+     */
+    public static Shape newShape(ShapeType shapeType, int number) {
+        // Create object if it's not already created
+        if(shape == null) {
+            shape = new Shape();
+        }
+
+        // Set this shape's pattern. No need to copy the contents
+        shape.shapeType = shapeType;
+        shape.shapeIdx = shapeType.ordinal();
+        shape.setPiece(Piece.of(shapeType));
+        shape.pieceSaved = shape.piece;
+        shape.leftMostIndex = number;
+        shape.x = number;
+
+        return shape;  // return the singleton object
+    }
+
+    /**
+     * Rotate the shape clockwise by 90 degrees, keeping its top-left corner.
+     * The four rotations of each shape type are precomputed Pieces, so this
+     * only moves to the next one.
+     */
+    public void rotateRight() {
+        // Keep the current piece for quick undo if collision detected
+        // (instead of performing an inverse rotate).
+        pieceSaved = piece;
+        setPiece(piece.rotateRight());
+    }
+
+    /**
+     * Rotate the shape anti-clockwise by 90 degrees, keeping its top-left
+     * corner.
+     */
+    public void rotateLeft() {
+        pieceSaved = piece;
+        setPiece(piece.rotateLeft());
+    }
+
+    /**
+     * Undo the rotate, due to move not allowed.
+     */
+    public void undoRotate() {
+        setPiece(pieceSaved);
+    }
+
+    private void setPiece(Piece piece) {
+        this.piece = piece;
+        this.maxRows = piece.height();
+        this.maxCols = piece.width();
+    }
+
+    /**
+     * The color of the shapes of the given type.
+     */
+    static Color colorOf(int shapeIdx) {
+        return SHAPES_COLOR[shapeIdx];
+    }
+
+    /**
+     * Paint itself via the Graphics object, in the bottom Matrix.ROWS rows.
+     * Since Shape is encapsulated in Matrix, shape.paint(Graphics)
+     * shall be called in matrix.paint(Graphics).
+     *
+     * @param g - the drawing Graphics object
+     */
+    public void paint(Graphics g) {
+        Image tile = Tiles.of(SHAPES_COLOR[this.shapeIdx]);
+        int bottomRow = y - (piece.height() - 1);
+        for (int cell = 0; cell < piece.cellCount(); cell++) {
+            int row = bottomRow + piece.cellRow(cell);
+            if (row < Matrix.ROWS) {
+                g.drawImage(tile, (x + piece.cellCol(cell)) * CELL_SIZE,
+                        (Matrix.ROWS - 1 - row) * CELL_SIZE, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package drwtetris;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The tiles cells are painted with: a cell of each color, pre-rendered once
+ * as a 3D rectangle, so that painting a cell is a copy of its tile rather
+ * than drawing it again.
+ */
+final class Tiles {
+    // The tile of each color, created on first use
+    private static final ConcurrentHashMap<Color, BufferedImage> TILES = new ConcurrentHashMap<>();
+
+    private Tiles() { }
+
+    /**
+     * The tile of the given color, CELL_SIZE pixels wide and high.
+     */
+    static BufferedImage of(Color color) {
+        return TILES.computeIfAbsent(color, Tiles::render);
+    }
+
+    private static BufferedImage render(Color color) {
+        BufferedImage tile = new BufferedImage(Shape.CELL_SIZE, Shape.CELL_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = tile.createGraphics();
+        g.setColor(color);
+        g.fill3DRect(0, 0, Shape.CELL_SIZE, Shape.CELL_SIZE, true);
+        g.dispose();
+        return tile;
+    }
+}
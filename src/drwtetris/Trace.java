@@ -0,0 +1,54 @@
+package drwtetris;
+
+import java.io.PrintStream;
+
+/**
+ * The Trace class prints debug tracing of the games played, up to a
+ * verbosity level. Matrix only calls it when the level is enabled, so
+ * nothing is formatted while tracing is off.
+ */
+public class Trace {
+
+    /** Verbosity levels, each one including the previous ones */
+    public enum Level {
+        /** No tracing */
+        OFF,
+        /** One trace per line: its number of shapes and final height */
+        LINES,
+        /** One trace per shape: where it landed and the resulting height */
+        SHAPES
+    }
+
+    /** Tracing off */
+    public final static Trace OFF = new Trace(Level.OFF, System.err);
+
+    // == Define Trace's properties ==
+    private final Level level;
+    private final PrintStream out;
+
+    /**
+     * Constructor
+     * @param level - the verbosity level
+     * @param out - the stream the traces are printed to
+     */
+    public Trace(Level level, PrintStream out) {
+        this.level = level;
+        this.out = out;
+    }
+
+    /**
+     * Check if the given verbosity level is traced.
+     */
+    public boolean isEnabled(Level level) {
+        return level != Level.OFF && this.level.compareTo(level) >= 0;
+    }
+
+    void shape(long line, int shapeIdx, int column, int landingRow, int height) {
+        out.println("line " + line + " shape " + Shape.ShapeType.values()[shapeIdx] + column
+                + " landed on row " + landingRow + ", height " + height);
+    }
+
+    void line(long line, int shapes, int height) {
+        out.println("line " + line + ": " + shapes + " shapes, height " + height);
+    }
+}
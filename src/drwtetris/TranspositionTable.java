@@ -0,0 +1,58 @@
+package drwtetris;
+
+import java.util.Arrays;
+
+/**
+ * The TranspositionTable class caches the scores of the positions searched
+ * by PlacementSearch, so that a position reached through different
+ * placements is only searched once.
+ *
+ * It is a fixed-size, always-replace hash table shared by all the threads of
+ * the search, without locks: an entry is two longs, the key xor the score,
+ * and the score. A torn entry, half written by another thread, fails the
+ * key check and is a miss, as is a key 0.
+ */
+final class TranspositionTable {
+    // == Define TranspositionTable's properties ==
+    private final long[] entries;
+    private final int mask;
+
+    /**
+     * Constructor
+     * @param bits - log2 of the number of entries
+     */
+    TranspositionTable(int bits) {
+        this.entries = new long[2 << bits];
+        this.mask = (1 << bits) - 1;
+    }
+
+    /**
+     * Get the score of the position of the given key.
+     * @return the score, NaN if unknown
+     */
+    double get(long key) {
+        int i = index(key);
+        long score = entries[i + 1];
+        long check = entries[i];
+        return (check ^ score) == key && key != 0 ? Double.longBitsToDouble(score) : Double.NaN;
+    }
+
+    /**
+     * Record the score of the position of the given key, replacing the entry
+     * of another position if any.
+     */
+    void put(long key, double value) {
+        int i = index(key);
+        long score = Double.doubleToRawLongBits(value);
+        entries[i] = key ^ score;
+        entries[i + 1] = score;
+    }
+
+    void clear() {
+        Arrays.fill(entries, 0L);
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ (key >>> 32)) & mask) << 1;
+    }
+}
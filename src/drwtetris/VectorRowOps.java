@@ -0,0 +1,31 @@
+package drwtetris;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * RowOps on the Vector API: tests as many words per instruction as the
+ * preferred vector species holds. Only loaded by RowOps when the
+ * jdk.incubator.vector module is enabled.
+ */
+final class VectorRowOps extends RowOps {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public boolean isFull(long[] words, int offset, int count, long lastWordFull) {
+        int last = offset + count - 1;
+        int i = offset;
+        for (int bound = offset + SPECIES.loopBound(count - 1); i < bound; i += SPECIES.length()) {
+            if (!LongVector.fromArray(SPECIES, words, i).compare(VectorOperators.EQ, -1L).allTrue()) {
+                return false;
+            }
+        }
+        for (; i < last; i++) {
+            if (words[i] != -1L) {
+                return false;
+            }
+        }
+        return words[last] == lastWordFull;
+    }
+}
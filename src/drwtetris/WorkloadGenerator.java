@@ -0,0 +1,248 @@
+package drwtetris;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * The WorkloadGenerator class writes synthetic input files, in the input
+ * format ("Q0,I2,T4", one game per line), for testing and benchmarking the
+ * engines on far more than src/input.txt: tall stacks, many line clears, or
+ * inputs of many GB. The file is written as it is generated, so any size
+ * can be generated in constant memory. The same options and seed always
+ * generate the same file.
+ *
+ * Usage: WorkloadGenerator [options] output
+ *   -l lines      number of lines (1000 by default)
+ *   -s bytes      generate lines until the file is at least this large
+ *                 instead, e.g. 4g, 500m or 64k
+ *   -n min[-max]  number of shapes per line (1-100 by default)
+ *   -p weights    distribution of the shapes, e.g. "I:4,Q:1,T:1": the
+ *                 shapes not listed are not generated (all equally by default)
+ *   -c density    share of the shapes, from 0 to 1, dropped where they land
+ *                 the lowest rather than at a random column, so that rows
+ *                 fill and clear: 0 for tall stacks, 1 for a flat game
+ *                 (0.5 by default)
+ *   -w cols       number of columns of the matrix (10 by default)
+ *   -seed seed    seed of the random generator (42 by default)
+ *
+ * To drop a shape where it lands the lowest, the game is played as it is
+ * generated: the generator is about as fast as the engine.
+ */
+public class WorkloadGenerator {
+    // == Define named constants ==
+    private final static int BUFFER_SIZE = 1 << 16;
+    private final static Shape.ShapeType[] SHAPE_TYPES = Shape.ShapeType.values();
+
+    // == Define WorkloadGenerator's properties ==
+    private final int cols;
+    private final int minShapes, maxShapes;
+    private final double clearDensity;
+    // Cumulative weights of the shape types, for drawing them
+    private final double[] cumulativeWeights = new double[SHAPE_TYPES.length];
+    private final Random random;
+    // The game of the line being generated
+    private final Matrix matrix;
+    // The token being written, e.g. "T123"
+    private final byte[] token = new byte[16];
+
+    /**
+     * Constructor
+     * @param cols - number of columns of the matrix
+     * @param minShapes, maxShapes - range of the number of shapes per line
+     * @param weights - weight of each shape type, by ordinal
+     * @param clearDensity - share of the shapes dropped where they land the lowest
+     * @param seed - seed of the random generator
+     */
+    public WorkloadGenerator(int cols, int minShapes, int maxShapes, double[] weights,
+                             double clearDensity, long seed) {
+        if (minShapes < 1 || maxShapes < minShapes) {
+            throw new IllegalArgumentException("Bad number of shapes per line: " + minShapes + "-" + maxShapes);
+        }
+        if (clearDensity < 0 || clearDensity > 1) {
+            throw new IllegalArgumentException("Clear density out of [0, 1]: " + clearDensity);
+        }
+        double total = 0;
+        for (int shapeIdx = 0; shapeIdx < SHAPE_TYPES.length; shapeIdx++) {
+            if (weights[shapeIdx] > 0 && Piece.of(shapeIdx).width() > cols) {
+                throw new IllegalArgumentException("Shape " + SHAPE_TYPES[shapeIdx] + " does not fit "
+                        + cols + " columns");
+            }
+            total += Math.max(weights[shapeIdx], 0);
+            cumulativeWeights[shapeIdx] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("No shape to generate");
+        }
+        this.cols = cols;
+        this.minShapes = minShapes;
+        this.maxShapes = maxShapes;
+        this.clearDensity = clearDensity;
+        this.random = new Random(seed);
+        this.matrix = new Matrix(cols);
+    }
+
+    /**
+     * Parse a distribution of the shapes, e.g. "I:4,Q:1,T:1", into a weight
+     * per shape type, by ordinal.
+     */
+    public static double[] parseWeights(String weights) {
+        double[] result = new double[SHAPE_TYPES.length];
+        for (String entry : weights.split(",")) {
+            int colon = entry.indexOf(':');
+            String name = (colon < 0 ? entry : entry.substring(0, colon)).trim();
+            result[Shape.ShapeType.valueOf(name).ordinal()] =
+                    colon < 0 ? 1 : Double.parseDouble(entry.substring(colon + 1));
+        }
+        return result;
+    }
+
+    /**
+     * Parse a size in bytes, with an optional k, m or g suffix.
+     */
+    public static long parseSize(String size) {
+        String digits = size.toLowerCase();
+        long unit = 1;
+        switch (digits.charAt(digits.length() - 1)) {
+            case 'k': unit = 1L << 10; break;
+            case 'm': unit = 1L << 20; break;
+            case 'g': unit = 1L << 30; break;
+        }
+        if (unit > 1) {
+            digits = digits.substring(0, digits.length() - 1);
+        }
+        return Long.parseLong(digits) * unit;
+    }
+
+    /**
+     * Write lines until the given number of lines or of bytes is reached,
+     * whichever comes first.
+     * @return the number of shapes written
+     */
+    public long generate(OutputStream out, long maxLines, long maxBytes) throws IOException {
+        long shapes = 0;
+        long bytes = 0;
+        for (long line = 0; line < maxLines && bytes < maxBytes; line++) {
+            matrix.clearMatrix();
+            int lineShapes = minShapes + random.nextInt(maxShapes - minShapes + 1);
+            for (int i = 0; i < lineShapes; i++) {
+                if (i > 0) {
+                    out.write(',');
+                    bytes++;
+                }
+                int length = nextToken();
+                out.write(token, 0, length);
+                bytes += length;
+            }
+            out.write('\n');
+            bytes++;
+            shapes += lineShapes;
+        }
+        return shapes;
+    }
+
+    // Draw the next shape and its column, play it, and write its token
+    //  into token[]
+    private int nextToken() {
+        double draw = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int shapeIdx = 0;
+        while (draw >= cumulativeWeights[shapeIdx]) {
+            shapeIdx++;
+        }
+        Piece piece = Piece.of(shapeIdx);
+        int lastColumn = cols - piece.width();
+        int column;
+        if (random.nextDouble() < clearDensity) {
+            // Where it lands the lowest, the leftmost of those
+            column = 0;
+            int lowest = Integer.MAX_VALUE;
+            for (int col = 0; col <= lastColumn; col++) {
+                int landingRow = piece.landingRow(matrix.heights, col);
+                if (landingRow < lowest) {
+                    lowest = landingRow;
+                    column = col;
+                }
+            }
+        } else {
+            column = random.nextInt(lastColumn + 1);
+        }
+        matrix.addPieceToMatrix(piece, column);
+
+        int length = 0;
+        token[length++] = (byte) SHAPE_TYPES[shapeIdx].name().charAt(0);
+        String digits = Integer.toString(column);
+        for (int i = 0; i < digits.length(); i++) {
+            token[length++] = (byte) digits.charAt(i);
+        }
+        return length;
+    }
+
+    public static void main(String[] args) throws IOException {
+        long lines = 1000;
+        long bytes = Long.MAX_VALUE;
+        int minShapes = 1, maxShapes = 100;
+        double[] weights = null;
+        double clearDensity = 0.5;
+        int cols = Matrix.COLS;
+        long seed = 42;
+        String output = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-l":
+                    lines = Long.parseLong(args[++i]);
+                    break;
+                case "-s":
+                    bytes = parseSize(args[++i]);
+                    lines = Long.MAX_VALUE;
+                    break;
+                case "-n": {
+                    String range = args[++i];
+                    int dash = range.indexOf('-');
+                    minShapes = Integer.parseInt(dash < 0 ? range : range.substring(0, dash));
+                    maxShapes = dash < 0 ? minShapes : Integer.parseInt(range.substring(dash + 1));
+                    break;
+                }
+                case "-p":
+                    weights = parseWeights(args[++i]);
+                    break;
+                case "-c":
+                    clearDensity = Double.parseDouble(args[++i]);
+                    break;
+                case "-w":
+                    cols = Integer.parseInt(args[++i]);
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    output = args[i];
+                    break;
+            }
+        }
+        if (output == null) {
+            System.err.println("Usage: WorkloadGenerator [-l lines | -s bytes] [-n min[-max]] [-p weights]"
+                    + " [-c density] [-w cols] [-seed seed] output");
+            System.exit(2);
+        }
+        if (weights == null) {
+            weights = new double[SHAPE_TYPES.length];
+            for (int shapeIdx = 0; shapeIdx < weights.length; shapeIdx++) {
+                // All the shapes that fit
+                weights[shapeIdx] = Piece.of(shapeIdx).width() <= cols ? 1 : 0;
+            }
+        }
+
+        WorkloadGenerator generator = new WorkloadGenerator(cols, minShapes, maxShapes, weights, clearDensity, seed);
+        long start = System.nanoTime();
+        long shapes;
+        Path path = Path.of(output);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE)) {
+            shapes = generator.generate(out, lines, bytes);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d shapes, %d bytes in %.3f s%n", shapes, Files.size(path), seconds);
+    }
+}
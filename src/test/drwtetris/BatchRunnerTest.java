@@ -0,0 +1,44 @@
+package drwtetris;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchRunnerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesAnOutputFilePerInput() throws Exception {
+        Path first = Files.writeString(dir.resolve("first.txt"), "Q0,Q2,Q4,Q6,Q8\nI0,I4,Q8\n");
+        Path second = Files.writeString(dir.resolve("second.txt"), "T1,Z3,I5,L5\n");
+        Path outputDir = dir.resolve("out");
+        int failed = new BatchRunner(2, Matrix.COLS, outputDir).run(List.of(first, second), report());
+        assertEquals(0, failed);
+        assertEquals("0\n1\n", Files.readString(outputDir.resolve("first.txt" + BatchRunner.OUTPUT_SUFFIX)));
+        assertEquals("6\n", Files.readString(outputDir.resolve("second.txt" + BatchRunner.OUTPUT_SUFFIX)));
+    }
+
+    @Test
+    void rejectsInputsWithTheSameOutputFile() throws Exception {
+        Path first = Files.writeString(Files.createDirectory(dir.resolve("a")).resolve("input.txt"), "Q0\n");
+        Path second = Files.writeString(Files.createDirectory(dir.resolve("b")).resolve("input.txt"), "I0\n");
+        Path outputDir = dir.resolve("out");
+        BatchRunner runner = new BatchRunner(2, Matrix.COLS, outputDir);
+        assertThrows(IllegalArgumentException.class, () -> runner.run(List.of(first, second), report()));
+        assertFalse(Files.exists(outputDir.resolve("input.txt" + BatchRunner.OUTPUT_SUFFIX)));
+    }
+
+    private static PrintStream report() {
+        return new PrintStream(new ByteArrayOutputStream());
+    }
+}
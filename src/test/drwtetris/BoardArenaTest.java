@@ -0,0 +1,61 @@
+package drwtetris;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BoardArenaTest {
+    private static final Shape.ShapeType[] SHAPE_TYPES = Shape.ShapeType.values();
+
+    @Test
+    void playsAsAMatrix() {
+        for (int cols : new int[] { 4, 10, 64 }) {
+            int boards = 50;
+            BoardArena arena = new BoardArena(boards, cols, 4);
+            Matrix[] matrices = new Matrix[boards];
+            for (int board = 0; board < boards; board++) {
+                matrices[board] = new Matrix(cols);
+            }
+            Random random = new Random(cols);
+            Piece[] pieces = new Piece[boards];
+            int[] columns = new int[boards];
+            for (int step = 0; step < 300; step++) {
+                for (int board = 0; board < boards; board++) {
+                    pieces[board] = Piece.of(SHAPE_TYPES[random.nextInt(SHAPE_TYPES.length)],
+                            random.nextInt(Piece.ROTATIONS));
+                    columns[board] = random.nextInt(cols - pieces[board].width() + 1);
+                    matrices[board].addPieceToMatrix(pieces[board], columns[board]);
+                }
+                arena.drop(pieces, columns);
+                for (int board = 0; board < boards; board++) {
+                    Matrix matrix = matrices[board];
+                    assertEquals(matrix.getHeight(), arena.getHeight(board));
+                    for (int col = 0; col < cols; col++) {
+                        assertEquals(matrix.heights[col], arena.getColumnHeight(board, col));
+                    }
+                    for (int row = 0; row < matrix.getHeight(); row++) {
+                        assertEquals(matrix.rows.word(row, 0), arena.getRow(board, row));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsColumnsOutOfTheBoard() {
+        BoardArena arena = new BoardArena(2, 10);
+        Piece piece = Piece.of(Shape.ShapeType.I, 0);
+        assertThrows(IllegalArgumentException.class, () -> arena.drop(0, piece, -1));
+        assertThrows(IllegalArgumentException.class, () -> arena.drop(1, piece, 10 - piece.width() + 1));
+        assertEquals(0, arena.getHeight(1));
+    }
+
+    @Test
+    void rejectsBoardsTooLargeForAnArray() {
+        assertThrows(IllegalArgumentException.class, () -> new BoardArena(1 << 20, 10, 1 << 12));
+        assertThrows(IllegalArgumentException.class, () -> new BoardArena(0, 10));
+    }
+}
@@ -0,0 +1,91 @@
+package drwtetris;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CachedGameTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void playsAsAMatrix() throws Exception {
+        Path input = dir.resolve("input.txt");
+        Files.writeString(input, sharedPrefixes(new Random(7)));
+        List<Integer> expected = new ArrayList<>();
+        new Matrix().newGame(input, expected::add);
+
+        for (long maxBytes : new long[] { 1, 4 << 10, CachedGame.DEFAULT_MAX_BYTES }) {
+            CachedGame game = new CachedGame(maxBytes, 8);
+            List<Integer> heights = new ArrayList<>();
+            game.newGame(input, heights::add);
+            assertEquals(expected, heights);
+            assertTrue(game.getUsedBytes() <= maxBytes, () -> game.getUsedBytes() + " bytes used");
+        }
+    }
+
+    @Test
+    void resumesFromTheCachedPrefixes() throws Exception {
+        Path input = dir.resolve("input.txt");
+        Files.writeString(input, sharedPrefixes(new Random(11)));
+        CachedGame game = new CachedGame();
+        game.newGame(input, height -> { });
+        assertTrue(game.getPlayedShapes() < game.getTotalShapes() / 2,
+                () -> game.getPlayedShapes() + " of " + game.getTotalShapes() + " shapes played");
+    }
+
+    @Test
+    void resumesEachLineFromThePreviousOne() throws Exception {
+        Path input = dir.resolve("input.txt");
+        Random random = new Random(13);
+        StringBuilder lines = new StringBuilder();
+        StringBuilder line = new StringBuilder();
+        int lineCount = 40;
+        for (int i = 0; i < lineCount; i++) {
+            line.append(i == 0 ? "" : ",").append("ZSQILJT".charAt(random.nextInt(7))).append(random.nextInt(7));
+            lines.append(line).append('\n');
+        }
+        Files.writeString(input, lines);
+        List<Integer> expected = new ArrayList<>();
+        new Matrix().newGame(input, expected::add);
+
+        CachedGame game = new CachedGame();
+        List<Integer> heights = new ArrayList<>();
+        game.newGame(input, heights::add);
+        assertEquals(expected, heights);
+        assertEquals(lineCount * (lineCount + 1) / 2, game.getTotalShapes());
+        // Each line only drops its last shape
+        assertEquals(lineCount, game.getPlayedShapes());
+    }
+
+    // Lines made of a few common prefixes, each continued at random; the
+    //  prefixes alone are lines too
+    private static String sharedPrefixes(Random random) {
+        String[] types = { "Z", "S", "Q", "I", "L", "J", "T" };
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            StringBuilder prefix = new StringBuilder();
+            for (int shape = 0; shape < 200; shape++) {
+                prefix.append(shape == 0 ? "" : ",").append(types[random.nextInt(7)]).append(random.nextInt(7));
+            }
+            prefixes.add(prefix.toString());
+        }
+        StringBuilder input = new StringBuilder();
+        for (int line = 0; line < 200; line++) {
+            input.append(prefixes.get(random.nextInt(prefixes.size())));
+            for (int shape = random.nextInt(3) * 10; shape > 0; shape--) {
+                input.append(',').append(types[random.nextInt(7)]).append(random.nextInt(7));
+            }
+            input.append('\n');
+        }
+        return input.toString();
+    }
+}
@@ -0,0 +1,120 @@
+package drwtetris;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CheckpointTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTrips() {
+        // Widths around the word boundaries of the bit-packed rows
+        for (int cols : new int[] { 4, 10, 63, 64, 65, 128, 130 }) {
+            Matrix matrix = randomMatrix(cols, new Random(cols));
+            Checkpoint checkpoint = new Checkpoint(1000, 1234, 123456789L, 42, 17, matrix.snapshot());
+            ByteBuffer buf = ByteBuffer.allocate(checkpoint.encodedSize());
+            checkpoint.encode(buf);
+            assertFalse(buf.hasRemaining());
+
+            buf.flip();
+            Checkpoint decoded = Checkpoint.decode(buf);
+            assertFalse(buf.hasRemaining());
+            assertEquals(1000, decoded.getInputSize());
+            assertEquals(1234, decoded.getInputTime());
+            assertEquals(123456789L, decoded.getOffset());
+            assertEquals(42, decoded.getLine());
+            assertEquals(17, decoded.getShapes());
+
+            Matrix restored = new Matrix(cols);
+            restored.restore(decoded.getState());
+            assertSameMatrix(matrix, restored);
+        }
+    }
+
+    @Test
+    void roundTripsAnEmptyMatrix() {
+        Checkpoint checkpoint = new Checkpoint(0, 0, 0, 1, 0, new Matrix().snapshot());
+        ByteBuffer buf = ByteBuffer.allocate(checkpoint.encodedSize());
+        checkpoint.encode(buf);
+        buf.flip();
+        assertEquals(0, Checkpoint.decode(buf).getState().getHeight());
+    }
+
+    @Test
+    void rejectsCorruptCheckpoints() {
+        Checkpoint checkpoint = new Checkpoint(100, 0, 99, 3, 5, randomMatrix(10, new Random(1)).snapshot());
+        ByteBuffer buf = ByteBuffer.allocate(checkpoint.encodedSize());
+        checkpoint.encode(buf);
+
+        // A flipped bit in the rows
+        ByteBuffer corrupt = ByteBuffer.wrap(buf.array().clone());
+        int last = corrupt.limit() - 5;
+        corrupt.put(last, (byte) (corrupt.get(last) ^ 1));
+        assertThrows(IllegalArgumentException.class, () -> Checkpoint.decode(corrupt));
+
+        // A torn write
+        ByteBuffer torn = ByteBuffer.wrap(buf.array(), 0, buf.limit() - 1);
+        assertThrows(IllegalArgumentException.class, () -> Checkpoint.decode(torn));
+
+        assertThrows(IllegalArgumentException.class, () -> Checkpoint.decode(ByteBuffer.allocate(64)));
+    }
+
+    @Test
+    void resumesOnlyTheInputItWasTakenOn() throws Exception {
+        Path input = Files.writeString(dir.resolve("input.txt"), "Q0,Q2,Q4\nI0,I4,Q8\nT1,Z3,I5,L5\n");
+        List<Integer> expected = new ArrayList<>();
+        new Matrix().newGame(input, expected::add);
+        List<Checkpoint> checkpoints = new ArrayList<>();
+        new Matrix().newGame(input, height -> { }, 4, checkpoints::add);
+        Checkpoint checkpoint = checkpoints.get(0);
+        assertEquals(Files.size(input), checkpoint.getInputSize());
+
+        List<Integer> resumed = new ArrayList<>();
+        new Matrix().resumeGame(input, checkpoint, resumed::add, 4, next -> { });
+        assertEquals(expected.subList((int) checkpoint.getLine() - 1, expected.size()), resumed);
+
+        Files.setLastModifiedTime(input, FileTime.fromMillis(checkpoint.getInputTime() + 1000));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Matrix().resumeGame(input, checkpoint, height -> { }, 4, next -> { }));
+        Files.writeString(input, "Q0\n", StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(input, FileTime.fromMillis(checkpoint.getInputTime()));
+        assertThrows(IllegalArgumentException.class, () -> checkpoint.checkInput(input));
+    }
+
+    // A matrix with a stack of a few chunks, and holes
+    private static Matrix randomMatrix(int cols, Random random) {
+        Matrix matrix = new Matrix(cols);
+        Shape.ShapeType[] types = Shape.ShapeType.values();
+        for (int i = 0; i < cols * 20; i++) {
+            Piece piece = Piece.of(types[random.nextInt(types.length)], random.nextInt(Piece.ROTATIONS));
+            matrix.addPieceToMatrix(piece, random.nextInt(cols - piece.width() + 1));
+        }
+        return matrix;
+    }
+
+    private static void assertSameMatrix(Matrix expected, Matrix actual) {
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int col = 0; col < expected.getCols(); col++) {
+            assertEquals(expected.heights[col], actual.heights[col], "column " + col);
+        }
+        for (int row = 0; row < expected.getHeight(); row++) {
+            for (int word = 0; word < expected.rows.words(); word++) {
+                assertEquals(expected.rows.word(row, word), actual.rows.word(row, word), "row " + row);
+            }
+        }
+    }
+}
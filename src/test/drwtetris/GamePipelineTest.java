@@ -0,0 +1,78 @@
+package drwtetris;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class GamePipelineTest {
+    // More input than the pipeline holds at once, so its reader must be
+    //  stopped after a bad line, not left waiting for a free buffer
+    private static final int TAIL_SIZE = 2 * GamePipeline.BATCHES * GamePipeline.READ_BUFFER_SIZE;
+
+    @Test
+    void playsEveryLine() throws Exception {
+        List<Integer> heights = run("Q0,Q2,Q4,Q6,Q8\nI0,I4,Q8\nT1,Z3,I5,L5\n");
+        assertEquals(List.of(0, 1, 6), heights);
+    }
+
+    @Test
+    void stopsReadingAfterABadLine() {
+        List<Integer> heights = new ArrayList<>();
+        IllegalArgumentException e = assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                assertThrows(IllegalArgumentException.class,
+                        () -> run("Q0,Q2\nX1\n" + tail(), heights)));
+        assertEquals("Unexpected character 'X' in input", e.getMessage());
+        assertEquals(List.of(2), heights);
+    }
+
+    @Test
+    void writesTheLinesBeforeABadColumn() {
+        List<Integer> heights = new ArrayList<>();
+        IllegalArgumentException e = assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                assertThrows(IllegalArgumentException.class,
+                        () -> run("Q0,Q2\nQ0,I8\n" + tail(), heights)));
+        assertEquals("Column 8 out of range for shape I on line 2: the matrix has 10 columns", e.getMessage());
+        assertEquals(List.of(2), heights);
+    }
+
+    private static String tail() {
+        StringBuilder tail = new StringBuilder(TAIL_SIZE + 16);
+        while (tail.length() < TAIL_SIZE) {
+            tail.append("Q0,I2,T4,S6\n");
+        }
+        return tail.toString();
+    }
+
+    private static List<Integer> run(String input) throws Exception {
+        List<Integer> heights = new ArrayList<>();
+        run(input, heights);
+        return heights;
+    }
+
+    private static void run(String input, List<Integer> heights) throws Exception {
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(input.getBytes()));
+        new GamePipeline(new Matrix()).run(channel, new ResultSink() {
+            @Override
+            public void accept(int height) {
+                heights.add(height);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+}
@@ -0,0 +1,132 @@
+package drwtetris;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+@Timeout(30)
+class GameServerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void playsLinesOverTcp() throws Exception {
+        try (Served served = new Served(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            assertEquals("0\n1\n6\n", exchange(served.address, "Q0,Q2,Q4,Q6,Q8\nI0,I4,Q8\nT1,Z3,I5,L5\n"));
+            // The last line needs no terminator
+            assertEquals("2\n", exchange(served.address, "Q0"));
+        }
+    }
+
+    @Test
+    void playsLinesOverAUnixSocket() throws Exception {
+        Path socket = dir.resolve("server.sock");
+        try (Served served = new Served(UnixDomainSocketAddress.of(socket))) {
+            assertEquals("0\n1\n", exchange(served.address, "Q0,Q2,Q4,Q6,Q8\nI0,I4,Q8\n"));
+        }
+        assertFalse(Files.exists(socket));
+    }
+
+    @Test
+    void answersPipelinedLinesInOrder() throws Exception {
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int line = 0; line < 20000; line++) {
+            // Line n is n % 10 Q shapes stacked on column 0
+            for (int shape = 0; shape < line % 10; shape++) {
+                input.append(shape == 0 ? "" : ",").append("Q0");
+            }
+            input.append('\n');
+            expected.append(2 * (line % 10)).append('\n');
+        }
+        try (Served served = new Served(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            assertEquals(expected.toString(), exchange(served.address, input.toString()));
+        }
+    }
+
+    @Test
+    void answersABadLineWithAnError() throws Exception {
+        try (Served served = new Served(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            // The lines before it are answered, the ones after it are not
+            assertEquals("2\nERR unexpected character 'X' in input\n",
+                    exchange(served.address, "Q0\nX1\nQ0\n"));
+            assertEquals("ERR column 9 out of range for shape Q on line 1: the matrix has 10 columns\n",
+                    exchange(served.address, "Q9\n"));
+            // The server goes on serving
+            assertEquals("4\n", exchange(served.address, "Q0,Q0\n"));
+        }
+    }
+
+    @Test
+    void parsesAddresses() {
+        assertEquals(new InetSocketAddress(InetAddress.getLoopbackAddress(), 7340), GameServer.parseAddress("7340"));
+        assertEquals(new InetSocketAddress("localhost", 80), GameServer.parseAddress("localhost:80"));
+        assertEquals(UnixDomainSocketAddress.of("/tmp/drw.sock"), GameServer.parseAddress("/tmp/drw.sock"));
+    }
+
+    // Write the input to the server, then read its answer until it closes
+    private static String exchange(SocketAddress address, String input) throws Exception {
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            // A writer thread, as the server stops reading while its output is not read
+            Thread writer = new Thread(() -> {
+                try {
+                    ByteBuffer buf = ByteBuffer.wrap(input.getBytes());
+                    while (buf.hasRemaining()) {
+                        channel.write(buf);
+                    }
+                    channel.shutdownOutput();
+                } catch (Exception e) {
+                    // The server closed after an error
+                }
+            });
+            writer.start();
+            ByteArrayOutputStream answer = new ByteArrayOutputStream();
+            ByteBuffer buf = ByteBuffer.allocate(4096);
+            while (channel.read(buf) >= 0) {
+                answer.write(buf.array(), 0, buf.position());
+                buf.clear();
+            }
+            writer.join();
+            return answer.toString();
+        }
+    }
+
+    // A GameServer serving on a thread of its own until closed
+    private static class Served implements AutoCloseable {
+        final GameServer server;
+        final SocketAddress address;
+        final Thread thread;
+
+        Served(SocketAddress bindAddress) throws Exception {
+            server = new GameServer(bindAddress, 2, Matrix.COLS);
+            address = server.getAddress();
+            thread = new Thread(() -> {
+                try {
+                    server.serve();
+                } catch (Exception e) {
+                    // closed
+                }
+            });
+            thread.start();
+        }
+
+        @Override
+        public void close() throws Exception {
+            server.close();
+            thread.join();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package drwtetris;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class InputParserTest {
+    @Test
+    void decodesShapesAndLines() {
+        assertEquals(List.of("Q0", "I2", "T14", "|", "Z0", "|"), parse("Q0,I2,T14\nZ0\n"));
+    }
+
+    @Test
+    void endsTheLastLineWithoutATerminator() {
+        assertEquals(List.of("Q0", "|", "L3", "|"), parse("Q0\nL3"));
+    }
+
+    @Test
+    void skipsCarriageReturnsAndSpaces() {
+        assertEquals(List.of("Q0", "I2", "|", "S4", "|"), parse("Q0, I2\r\nS4\r\n"));
+    }
+
+    @Test
+    void endsEmptyLines() {
+        assertEquals(List.of("|", "J1", "|", "|"), parse("\nJ1\n\n"));
+        assertEquals(List.of(), parse(""));
+    }
+
+    @Test
+    void decodesTokensSplitAcrossBuffers() {
+        String input = "Q10,I23\nT456\n";
+        for (int split = 0; split <= input.length(); split++) {
+            assertEquals(List.of("Q10", "I23", "|", "T456", "|"),
+                    parse(input.substring(0, split), input.substring(split)), "split at " + split);
+        }
+    }
+
+    @Test
+    void decodesTheLargestColumn() {
+        assertEquals(List.of("I" + InputParser.MAX_COLUMN, "|"), parse("I" + InputParser.MAX_COLUMN + "\n"));
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertThrows(IllegalArgumentException.class, () -> parse("X1\n"));
+        assertThrows(IllegalArgumentException.class, () -> parse("q1\n"));
+        assertThrows(IllegalArgumentException.class, () -> parse("12\n"));
+        assertThrows(IllegalArgumentException.class, () -> parse("QI1\n"));
+        assertThrows(IllegalArgumentException.class, () -> parse("Q0;I1\n"));
+    }
+
+    @Test
+    void rejectsEmptyTokensAndMissingColumns() {
+        assertEquals("Empty shape on line 1", assertThrows(IllegalArgumentException.class,
+                () -> parse(",Q0\n")).getMessage());
+        assertEquals("Empty shape on line 2", assertThrows(IllegalArgumentException.class,
+                () -> parse("I0\nQ0,,Q2\n")).getMessage());
+        assertThrows(IllegalArgumentException.class, () -> parse("Q0,\n"));
+        assertThrows(IllegalArgumentException.class, () -> parse("Q0,"));
+        assertEquals("Missing column for shape Q on line 1", assertThrows(IllegalArgumentException.class,
+                () -> parse("Q\n")).getMessage());
+        assertThrows(IllegalArgumentException.class, () -> parse("Q,I2\n"));
+        assertThrows(IllegalArgumentException.class, () -> parse("I2,Q"));
+    }
+
+    @Test
+    void processesALineAsTheParser() {
+        Matrix matrix = new Matrix();
+        assertEquals(2, matrix.processLine("Q0,Q2,Q4,Q6"));
+        assertEquals(0, matrix.processLine("Q8"));
+        assertEquals(1, matrix.processLine(" I0, I4\r"));
+    }
+
+    @Test
+    void processLineRejectsMalformedTokens() {
+        for (String line : new String[] { "Q0,,Q2", ",Q0", "Q0,", "Q0Q2", "Q", "X1", "12", "Q12a" }) {
+            Matrix matrix = new Matrix();
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> matrix.processLine(line), line);
+            assertEquals(parserMessage(line), e.getMessage(), line);
+        }
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new Matrix().processLine("I7"));
+        assertEquals("Column 7 out of range for shape I on line 1: the matrix has " + Matrix.COLS + " columns",
+                e.getMessage());
+    }
+
+    @Test
+    void rejectsColumnsOutOfRange() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> parse("Q0\nI" + (InputParser.MAX_COLUMN + 1L) + "\n"));
+        assertEquals("Column out of range on line 2: more than " + InputParser.MAX_COLUMN, e.getMessage());
+        // Far too many digits do not wrap around
+        assertThrows(IllegalArgumentException.class, () -> parse("I99999999999999999999\n"));
+    }
+
+    @Test
+    void tracksTheResumeOffset() {
+        InputParser parser = new InputParser(new InputParser.Listener() {
+            @Override
+            public void shape(int shapeIdx, int column) {
+            }
+
+            @Override
+            public void endLine() {
+            }
+        });
+        parser.parse(ByteBuffer.wrap("Q0,I2\nT1,".getBytes()));
+        // After the comma ending T1, the last shape reported
+        assertEquals(9, parser.getResumeOffset());
+        assertEquals(1, parser.getLines());
+    }
+
+    // The message of the parser rejecting the line
+    private static String parserMessage(String line) {
+        return assertThrows(IllegalArgumentException.class, () -> parse(line)).getMessage();
+    }
+
+    // The shapes decoded, e.g. "Q0", and the line ends, "|"
+    private static List<String> parse(String... buffers) {
+        List<String> events = new ArrayList<>();
+        InputParser parser = new InputParser(new InputParser.Listener() {
+            @Override
+            public void shape(int shapeIdx, int column) {
+                events.add(Shape.ShapeType.values()[shapeIdx].name() + column);
+            }
+
+            @Override
+            public void endLine() {
+                events.add("|");
+            }
+        });
+        for (String buffer : buffers) {
+            parser.parse(ByteBuffer.wrap(buffer.getBytes()));
+        }
+        parser.finish();
+        return events;
+    }
+}
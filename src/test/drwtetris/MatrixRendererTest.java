@@ -0,0 +1,127 @@
+package drwtetris;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+class MatrixRendererTest {
+    private static final int Q = Shape.ShapeType.Q.ordinal();
+
+    @Test
+    void repaintsOnlyTheCellsChanged() {
+        Matrix matrix = new Matrix();
+        MatrixRenderer renderer = new MatrixRenderer(matrix, Matrix.ROWS);
+        int cells = Matrix.ROWS * Matrix.COLS;
+        assertEquals(cells, renderer.getCellsPainted());
+        assertEquals(0, renderer.render());
+
+        // Two rows full but for the last two columns
+        boolean[][] before = cells(matrix);
+        for (int col = 0; col < 8; col += 2) {
+            matrix.addShapeToMatrix(Q, col);
+        }
+        assertEquals(changed(before, cells(matrix)), renderer.render());
+        assertEquals(16, changed(before, cells(matrix)));
+        assertSamePixels(matrix, renderer);
+
+        // A falling shape: only its cells
+        matrix.newShape(Shape.ShapeType.Q, 8);
+        assertEquals(4, renderer.render());
+        assertSamePixels(matrix, renderer);
+        matrix.stepGame(Action.DOWN);
+        // Uncovered where it was, painted where it is
+        assertEquals(8, renderer.render());
+        assertSamePixels(matrix, renderer);
+
+        // It locks down and clears both rows; the next shape falls
+        before = cells(matrix);
+        matrix.stepGame(Action.HARD_DROP);
+        assertEquals(2, matrix.lockDown());
+        assertEquals(0, matrix.getHeight());
+        matrix.newShape(Shape.ShapeType.I, 0);
+        assertEquals(4 + changed(before, cells(matrix)) + 4, renderer.render());
+        assertSamePixels(matrix, renderer);
+
+        // A lock without a clear
+        before = cells(matrix);
+        matrix.stepGame(Action.HARD_DROP);
+        assertEquals(0, matrix.lockDown());
+        matrix.newShape(Shape.ShapeType.T, 3);
+        assertEquals(4 + changed(before, cells(matrix)) + 4, renderer.render());
+        assertEquals(4, changed(before, cells(matrix)));
+        assertSamePixels(matrix, renderer);
+
+        matrix.shape = null;
+        assertEquals(4, renderer.render());
+        assertEquals(0, renderer.render());
+        assertSamePixels(matrix, renderer);
+        renderer.dispose();
+    }
+
+    @Test
+    void scrollsToTheTopOfTheStack() {
+        Matrix matrix = new Matrix();
+        MatrixRenderer renderer = new MatrixRenderer(matrix, Matrix.ROWS);
+        renderer.setFollow(true);
+        // A column of Q shapes on the left, two rows each
+        for (int i = 0; i < 15; i++) {
+            matrix.addShapeToMatrix(Q, 0);
+        }
+        renderer.render();
+        assertEquals(matrix.getHeight() - Matrix.ROWS, renderer.getViewRow());
+
+        // Up two rows: only the rows brought into view are painted
+        long painted = renderer.getCellsPainted();
+        matrix.addShapeToMatrix(Q, 0);
+        renderer.render();
+        assertEquals(2 * Matrix.COLS, renderer.getCellsPainted() - painted);
+
+        // As a renderer showing those rows from scratch
+        Matrix copy = new Matrix();
+        copy.restore(matrix.snapshot());
+        MatrixRenderer fresh = new MatrixRenderer(copy, Matrix.ROWS);
+        fresh.setViewRow(renderer.getViewRow());
+        fresh.render();
+        assertArrayEquals(pixels(fresh.getImage()), pixels(renderer.getImage()));
+        renderer.dispose();
+        fresh.dispose();
+    }
+
+    // The pixels of the renderer match a full repaint of the matrix
+    private static void assertSamePixels(Matrix matrix, MatrixRenderer renderer) {
+        BufferedImage full = new BufferedImage(Matrix.COLS * Shape.CELL_SIZE, Matrix.ROWS * Shape.CELL_SIZE,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = full.createGraphics();
+        matrix.paint(g);
+        g.dispose();
+        assertArrayEquals(pixels(full), pixels(renderer.getImage()));
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    private static boolean[][] cells(Matrix matrix) {
+        boolean[][] cells = new boolean[Matrix.ROWS][Matrix.COLS];
+        for (int row = 0; row < Matrix.ROWS; row++) {
+            for (int col = 0; col < Matrix.COLS; col++) {
+                cells[row][col] = matrix.isOccupied(row, col);
+            }
+        }
+        return cells;
+    }
+
+    private static int changed(boolean[][] before, boolean[][] after) {
+        int changed = 0;
+        for (int row = 0; row < before.length; row++) {
+            for (int col = 0; col < before[row].length; col++) {
+                changed += before[row][col] != after[row][col] ? 1 : 0;
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,162 @@
+package drwtetris;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+class PieceTest {
+    // The drop orientation of each shape, by ShapeType ordinal, top row first
+    private static final String[][] DRAWINGS = {
+            { "##.", ".##" },         // Z
+            { ".##", "##." },         // S
+            { "##", "##" },           // Q
+            { "####" },               // I
+            { "#.", "#.", "##" },     // L
+            { ".#", ".#", "##" },     // J
+            { "###", ".#." }          // T
+    };
+
+    @Test
+    void rotatesAsTheDrawings() {
+        for (Shape.ShapeType shapeType : Shape.ShapeType.values()) {
+            Set<Integer> cells = cellsOf(DRAWINGS[shapeType.ordinal()]);
+            for (int rotation = 0; rotation < Piece.ROTATIONS; rotation++) {
+                Piece piece = Piece.of(shapeType, rotation);
+                assertEquals(cells, cellsOf(piece), shapeType + "/" + rotation);
+                assertEquals(shapeType, piece.shapeType());
+                assertEquals(rotation, piece.rotation());
+                cells = rotateRight(cells);
+            }
+        }
+    }
+
+    @Test
+    void turnsBothWays() {
+        for (Shape.ShapeType shapeType : Shape.ShapeType.values()) {
+            Piece piece = Piece.of(shapeType);
+            assertSame(piece, Piece.of(shapeType.ordinal()));
+            for (int rotation = 0; rotation < Piece.ROTATIONS; rotation++) {
+                assertSame(Piece.of(shapeType, rotation + 1), piece.rotateRight());
+                assertSame(Piece.of(shapeType, rotation - 1), piece.rotateLeft());
+                assertSame(piece, piece.rotateRight().rotateLeft());
+                piece = piece.rotateRight();
+            }
+            assertSame(Piece.of(shapeType), piece);
+        }
+    }
+
+    @Test
+    void describesItsCellsByRowMasks() {
+        for (Shape.ShapeType shapeType : Shape.ShapeType.values()) {
+            for (int rotation = 0; rotation < Piece.ROTATIONS; rotation++) {
+                Piece piece = Piece.of(shapeType, rotation);
+                assertEquals(4, piece.cellCount());
+                long allRows = 0;
+                int cells = 0;
+                for (int row = 0; row < piece.height(); row++) {
+                    assertTrue(piece.rowMask(row) != 0, "no empty row");
+                    allRows |= piece.rowMask(row);
+                    cells += Long.bitCount(piece.rowMask(row));
+                }
+                assertEquals(4, cells);
+                assertEquals((1L << piece.width()) - 1, allRows, "the columns spanned");
+                for (int cell = 0; cell < piece.cellCount(); cell++) {
+                    assertTrue((piece.rowMask(piece.cellRow(cell)) & 1L << piece.cellCol(cell)) != 0);
+                }
+                for (int col = 0; col < piece.width(); col++) {
+                    assertTrue((piece.rowMask(piece.bottom(col)) & 1L << col) != 0);
+                    assertTrue((piece.rowMask(piece.top(col) - 1) & 1L << col) != 0);
+                    for (int row = 0; row < piece.bottom(col); row++) {
+                        assertEquals(0, piece.rowMask(row) & 1L << col);
+                    }
+                    for (int row = piece.top(col); row < piece.height(); row++) {
+                        assertEquals(0, piece.rowMask(row) & 1L << col);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void listsTheDistinctOrientations() {
+        int[] expected = { 2, 2, 1, 2, 4, 4, 4 };
+        for (Shape.ShapeType shapeType : Shape.ShapeType.values()) {
+            Piece[] orientations = Piece.orientations(shapeType.ordinal());
+            assertEquals(expected[shapeType.ordinal()], orientations.length, shapeType.name());
+            for (int rotation = 0; rotation < Piece.ROTATIONS; rotation++) {
+                assertEquals(cellsOf(orientations[rotation % orientations.length]),
+                        cellsOf(Piece.of(shapeType, rotation)));
+            }
+        }
+    }
+
+    @Test
+    void landsOnTheHighestColumnUnderIt() {
+        Random random = new Random(17);
+        int[] heights = new int[Matrix.COLS];
+        for (int trial = 0; trial < 1000; trial++) {
+            for (int col = 0; col < heights.length; col++) {
+                heights[col] = random.nextInt(8);
+            }
+            Piece piece = Piece.of(Shape.ShapeType.values()[random.nextInt(7)], random.nextInt(Piece.ROTATIONS));
+            int column = random.nextInt(heights.length - piece.width() + 1);
+            // Lowered one row at a time while no cell goes into the stack
+            int row = 20;
+            while (row > 0 && fitsAbove(piece, heights, column, row - 1)) {
+                row--;
+            }
+            assertEquals(row, piece.landingRow(heights, column));
+        }
+    }
+
+    private static boolean fitsAbove(Piece piece, int[] heights, int column, int row) {
+        for (int cell = 0; cell < piece.cellCount(); cell++) {
+            if (row + piece.cellRow(cell) < heights[column + piece.cellCol(cell)]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The cells of a drawing, as col * 16 + row with row 0 at the bottom
+    private static Set<Integer> cellsOf(String[] drawing) {
+        Set<Integer> cells = new TreeSet<>();
+        for (int line = 0; line < drawing.length; line++) {
+            for (int col = 0; col < drawing[line].length(); col++) {
+                if (drawing[line].charAt(col) == '#') {
+                    cells.add(col * 16 + drawing.length - 1 - line);
+                }
+            }
+        }
+        return cells;
+    }
+
+    private static Set<Integer> cellsOf(Piece piece) {
+        Set<Integer> cells = new TreeSet<>();
+        for (int cell = 0; cell < piece.cellCount(); cell++) {
+            cells.add(piece.cellCol(cell) * 16 + piece.cellRow(cell));
+        }
+        return cells;
+    }
+
+    // The cells turned a quarter clockwise, moved back to column and row 0
+    private static Set<Integer> rotateRight(Set<Integer> cells) {
+        Set<Integer> rotated = new TreeSet<>();
+        int minCol = Integer.MAX_VALUE, minRow = Integer.MAX_VALUE;
+        for (int cell : cells) {
+            // (col, row) to (row, -col)
+            minCol = Math.min(minCol, cell % 16);
+            minRow = Math.min(minRow, -(cell / 16));
+        }
+        for (int cell : cells) {
+            rotated.add((cell % 16 - minCol) * 16 + (-(cell / 16) - minRow));
+        }
+        return rotated;
+    }
+}
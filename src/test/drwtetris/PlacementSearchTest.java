@@ -0,0 +1,141 @@
+package drwtetris;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class PlacementSearchTest {
+    private static final Shape.ShapeType[] SHAPE_TYPES = Shape.ShapeType.values();
+    // Without the rows cleared, which a board taken from a Matrix does not count
+    private static final BoardEvaluator EVALUATOR = BoardEvaluator.weighted(-0.51, 0, -0.36, -0.18);
+
+    @Test
+    void findsTheBestPlacement() {
+        Random random = new Random(5);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int trial = 0; trial < 5; trial++) {
+                Matrix matrix = randomMatrix(random, 20);
+                Shape.ShapeType[] shapes = randomShapes(random, 3);
+                int height = matrix.getHeight();
+
+                Placement placement = new PlacementSearch(pool, EVALUATOR, 16).search(matrix, shapes);
+                assertEquals(bestScore(matrix, shapes, 0), placement.getScore(), 1e-9);
+                assertEquals(height, matrix.getHeight());
+
+                // The placement advised leads to that score
+                Matrix.State state = matrix.snapshot();
+                matrix.addPieceToMatrix(placement.getPiece(), placement.getColumn());
+                assertEquals(placement.getScore(), bestScore(matrix, shapes, 1), 1e-9);
+                matrix.restore(state);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void fillsAWell() {
+        // Four rows full but for column 9: only an upright I clears them
+        Matrix matrix = new Matrix();
+        for (int col = 0; col < 8; col += 2) {
+            matrix.addShapeToMatrix(Shape.ShapeType.Q.ordinal(), col);
+            matrix.addShapeToMatrix(Shape.ShapeType.Q.ordinal(), col);
+        }
+        matrix.addPieceToMatrix(Piece.of(Shape.ShapeType.I, 1), 8);
+        Placement placement = new PlacementSearch().search(matrix, Shape.ShapeType.I);
+        assertEquals(Shape.ShapeType.I, placement.getShapeType());
+        assertEquals(1, placement.getRotation() % 2);
+        assertEquals(9, placement.getColumn());
+
+        try (GameSession session = new GameSession()) {
+            session.drop(Shape.ShapeType.I, 1, 9);
+            assertEquals(4, session.getHeight());
+        }
+    }
+
+    @Test
+    void advisesTheSamePlacementOnAnyNumberOfThreads() {
+        Random random = new Random(9);
+        Matrix matrix = randomMatrix(random, 30);
+        Shape.ShapeType[] shapes = randomShapes(random, 3);
+        Placement expected = null;
+        for (int threads : new int[] { 1, 2, 8 }) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                Placement placement = new PlacementSearch(pool, BoardEvaluator.DEFAULT, 12).search(matrix, shapes);
+                if (expected == null) {
+                    expected = placement;
+                }
+                assertEquals(expected.toString(), placement.toString(), threads + " threads");
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void reusesTheScoresOfTheLastSearch() {
+        Random random = new Random(13);
+        Matrix matrix = randomMatrix(random, 20);
+        Shape.ShapeType[] shapes = randomShapes(random, 3);
+        // On one thread, so that no two threads search a position at once
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            PlacementSearch search = new PlacementSearch(pool, BoardEvaluator.DEFAULT, 16);
+            Placement first = search.search(matrix, shapes);
+            long firstEvaluated = search.getEvaluated();
+            Placement second = search.search(matrix, shapes);
+            long secondEvaluated = search.getEvaluated() - firstEvaluated;
+            assertEquals(first.toString(), second.toString());
+            // Only the placements of the first shape are tried again
+            assertTrue(secondEvaluated < firstEvaluated / 4, () -> secondEvaluated + " of " + firstEvaluated);
+
+            search.clearTable();
+            search.search(matrix, shapes);
+            assertEquals(firstEvaluated, search.getEvaluated() - firstEvaluated - secondEvaluated);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // The best score reachable by placing shapes[depth..] on the matrix, by
+    //  trying every placement on a copy of the matrix
+    private static double bestScore(Matrix matrix, Shape.ShapeType[] shapes, int depth) {
+        if (depth == shapes.length) {
+            return EVALUATOR.evaluate(SearchBoard.of(matrix));
+        }
+        double best = Double.NEGATIVE_INFINITY;
+        Matrix.State state = matrix.snapshot();
+        for (int rotation = 0; rotation < Piece.ROTATIONS; rotation++) {
+            Piece piece = Piece.of(shapes[depth], rotation);
+            for (int column = 0; column + piece.width() <= matrix.getCols(); column++) {
+                matrix.addPieceToMatrix(piece, column);
+                best = Math.max(best, bestScore(matrix, shapes, depth + 1));
+                matrix.restore(state);
+            }
+        }
+        return best;
+    }
+
+    private static Matrix randomMatrix(Random random, int shapes) {
+        Matrix matrix = new Matrix();
+        for (int i = 0; i < shapes; i++) {
+            Piece piece = Piece.of(SHAPE_TYPES[random.nextInt(SHAPE_TYPES.length)], random.nextInt(Piece.ROTATIONS));
+            matrix.addPieceToMatrix(piece, random.nextInt(Matrix.COLS - piece.width() + 1));
+        }
+        return matrix;
+    }
+
+    private static Shape.ShapeType[] randomShapes(Random random, int count) {
+        Shape.ShapeType[] shapes = new Shape.ShapeType[count];
+        for (int i = 0; i < count; i++) {
+            shapes[i] = SHAPE_TYPES[random.nextInt(SHAPE_TYPES.length)];
+        }
+        return shapes;
+    }
+}
@@ -0,0 +1,122 @@
+package drwtetris;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class RowStoreTest {
+    @Test
+    void removesFullRowsAsAList() {
+        for (int cols : new int[] { 1, 10, 64, 65, 130 }) {
+            RowStore store = new RowStore(cols);
+            // The rows the store shall hold, bottom first
+            List<long[]> expected = new ArrayList<>();
+            Random random = new Random(cols);
+            for (int step = 0; step < 2000; step++) {
+                // Add a few rows, some of them full
+                for (int i = random.nextInt(8); i > 0; i--) {
+                    long[] row = randomRow(random, cols, random.nextInt(3) == 0);
+                    for (int word = 0; word < row.length; word++) {
+                        store.or(expected.size(), word, row[word]);
+                    }
+                    expected.add(row);
+                }
+                int height = expected.size();
+                int from = height == 0 ? 0 : random.nextInt(height);
+                int to = Math.min(height, from + random.nextInt(RowStore.CHUNK_ROWS * 2));
+                expected.subList(from, to).removeIf(row -> isFull(row, cols));
+                assertEquals(height - expected.size(), store.removeFullRows(from, to, height));
+                assertRows(expected, store);
+            }
+        }
+    }
+
+    @Test
+    void releasesTheChunksAboveTheStack() {
+        RowStore store = new RowStore(10);
+        long full = (1L << 10) - 1;
+        int height = 5 * RowStore.CHUNK_ROWS;
+        for (int row = 0; row < height; row++) {
+            // A marker in the bottom rows, the rows above full
+            store.or(row, 0, row < 3 ? 1L << row : full);
+        }
+        assertEquals(height, store.capacity());
+
+        assertEquals(height - 3, store.removeFullRows(3, height, height));
+        assertEquals(RowStore.CHUNK_ROWS, store.capacity());
+        for (int row = 0; row < 3; row++) {
+            assertEquals(1L << row, store.word(row, 0));
+        }
+        for (int row = 3; row < RowStore.CHUNK_ROWS; row++) {
+            assertEquals(0L, store.word(row, 0));
+        }
+
+        // The released chunks come back empty
+        store.or(height - 1, 0, 1L);
+        assertEquals(height, store.capacity());
+        for (int row = 3; row < height - 1; row++) {
+            assertFalse(store.isSet(row, 0));
+        }
+
+        store.clear();
+        assertEquals(0, store.capacity());
+        assertEquals(0L, store.word(0, 0));
+    }
+
+    @Test
+    void recyclesTheRemovedRowsAsTheTopRows() {
+        RowStore store = new RowStore(3);
+        store.or(0, 0, 0b111);
+        store.or(1, 0, 0b001);
+        store.or(2, 0, 0b111);
+        store.or(3, 0, 0b010);
+        assertTrue(store.isFull(0));
+        assertEquals(2, store.removeFullRows(0, 3, 4));
+        assertEquals(0b001, store.word(0, 0));
+        assertEquals(0b010, store.word(1, 0));
+        assertEquals(0L, store.word(2, 0));
+        assertEquals(0L, store.word(3, 0));
+        // Nothing left over in the recycled rows
+        store.or(2, 0, 0b100);
+        assertEquals(0b100, store.word(2, 0));
+    }
+
+    private static long[] randomRow(Random random, int cols, boolean full) {
+        int words = (cols + 63) >>> 6;
+        long[] row = new long[words];
+        for (int word = 0; word < words; word++) {
+            int bits = Math.min(64, cols - (word << 6));
+            long mask = bits == 64 ? -1L : (1L << bits) - 1;
+            row[word] = (full ? -1L : random.nextLong()) & mask;
+        }
+        return row;
+    }
+
+    private static boolean isFull(long[] row, int cols) {
+        int cells = 0;
+        for (long word : row) {
+            cells += Long.bitCount(word);
+        }
+        return cells == cols;
+    }
+
+    private static void assertRows(List<long[]> expected, RowStore store) {
+        long[] actual = new long[store.words()];
+        for (int row = 0; row < expected.size(); row++) {
+            for (int word = 0; word < actual.length; word++) {
+                actual[word] = store.word(row, word);
+            }
+            assertArrayEquals(expected.get(row), actual, "row " + row);
+        }
+        for (int word = 0; word < actual.length; word++) {
+            assertEquals(0L, store.word(expected.size(), word));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package drwtetris;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class SessionPoolTest {
+    private static final Shape.ShapeType[] SHAPE_TYPES = Shape.ShapeType.values();
+
+    @Test
+    void playsAsAMatrix() {
+        Random random = new Random(3);
+        Matrix matrix = new Matrix();
+        try (GameSession session = new SessionPool().acquire()) {
+            for (int i = 0; i < 2000; i++) {
+                Shape.ShapeType shapeType = SHAPE_TYPES[random.nextInt(SHAPE_TYPES.length)];
+                int rotation = random.nextInt(Piece.ROTATIONS);
+                Piece piece = Piece.of(shapeType, rotation);
+                int column = random.nextInt(Matrix.COLS - piece.width() + 1);
+                matrix.addPieceToMatrix(piece, column);
+                assertEquals(matrix.getHeight(), session.drop(shapeType, rotation, column));
+            }
+            assertEquals(2000, session.getShapes());
+        }
+    }
+
+    @Test
+    void reusesClosedSessionsReset() {
+        SessionPool pool = new SessionPool(Matrix.COLS, 4);
+        GameSession session = pool.acquire();
+        session.drop(Shape.ShapeType.I, 0);
+        session.drop(Shape.ShapeType.Q, 8);
+        session.close();
+        assertEquals(1, pool.getIdle());
+
+        GameSession again = pool.acquire();
+        assertSame(session, again);
+        assertEquals(0, pool.getIdle());
+        assertEquals(0, again.getHeight());
+        assertEquals(0, again.getShapes());
+        for (int col = 0; col < Matrix.COLS; col++) {
+            assertFalse(again.isOccupied(0, col));
+        }
+        // The new game starts from an empty matrix
+        assertEquals(2, again.drop(Shape.ShapeType.Q, 0));
+        again.close();
+    }
+
+    @Test
+    void ignoresASecondClose() {
+        SessionPool pool = new SessionPool(Matrix.COLS, 4);
+        GameSession session = pool.acquire();
+        session.close();
+        session.close();
+        assertEquals(1, pool.getIdle());
+        assertSame(session, pool.acquire());
+        assertNotSame(session, pool.acquire());
+    }
+
+    @Test
+    void keepsAtMostMaxIdleSessions() {
+        SessionPool pool = new SessionPool(Matrix.COLS, 2);
+        List<GameSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            sessions.add(pool.acquire());
+        }
+        sessions.forEach(GameSession::close);
+        assertEquals(2, pool.getIdle());
+    }
+
+    @Test
+    void resetsAGame() {
+        try (GameSession session = new GameSession(6)) {
+            session.drop(Shape.ShapeType.I, 1, 0);
+            assertEquals(4, session.getHeight());
+            session.reset();
+            assertEquals(0, session.getHeight());
+            assertEquals(0, session.getShapes());
+            assertEquals(1, session.drop(Shape.ShapeType.I, 2));
+        }
+    }
+
+    @Test
+    void rejectsColumnsOutOfTheMatrix() {
+        try (GameSession session = new GameSession()) {
+            assertThrows(IllegalArgumentException.class, () -> session.drop(Shape.ShapeType.I, -1));
+            assertThrows(IllegalArgumentException.class, () -> session.drop(Shape.ShapeType.I, 7));
+            assertEquals(0, session.getShapes());
+        }
+    }
+
+    @Test
+    void sharesSessionsAcrossThreads() throws Exception {
+        SessionPool pool = new SessionPool(Matrix.COLS, 8);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> games = new ArrayList<>();
+            for (int task = 0; task < 64; task++) {
+                games.add(executor.submit(() -> {
+                    for (int game = 0; game < 500; game++) {
+                        try (GameSession session = pool.acquire()) {
+                            // Two Q shapes stacked in column 0, the lower one
+                            //  cleared by a row of Q shapes
+                            assertEquals(0, session.getHeight());
+                            assertEquals(2, session.drop(Shape.ShapeType.Q, 0));
+                            assertEquals(4, session.drop(Shape.ShapeType.Q, 0));
+                            for (int col = 2; col < Matrix.COLS; col += 2) {
+                                session.drop(Shape.ShapeType.Q, col);
+                            }
+                            assertEquals(2, session.getHeight());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> game : games) {
+                game.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // No more sessions than threads were ever in use at once
+        assertTrue(pool.getIdle() >= 1 && pool.getIdle() <= 8, () -> pool.getIdle() + " idle");
+    }
+}
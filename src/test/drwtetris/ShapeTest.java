@@ -0,0 +1,118 @@
+package drwtetris;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ShapeTest {
+    private static final Shape.ShapeType[] SHAPE_TYPES = Shape.ShapeType.values();
+
+    @Test
+    void checksMovesAsCellByCell() {
+        // Widths of one word, and of two with a shape across the boundary
+        for (int cols : new int[] { 10, 70 }) {
+            Random random = new Random(cols);
+            Matrix matrix = randomMatrix(cols, random);
+            for (int trial = 0; trial < 20000; trial++) {
+                matrix.newShape(SHAPE_TYPES[random.nextInt(SHAPE_TYPES.length)], 0);
+                Shape shape = matrix.shape;
+                for (int turns = random.nextInt(Piece.ROTATIONS); turns > 0; turns--) {
+                    shape.rotateRight();
+                }
+                shape.x = random.nextInt(cols + 6) - 3;
+                shape.y = random.nextInt(matrix.getHeight() + 6) - 2;
+                assertEquals(allowedCellByCell(matrix, shape), matrix.actionAllowed(),
+                        () -> shape.piece.shapeType() + "/" + shape.piece.rotation() + " at " + shape.x + "," + shape.y);
+            }
+        }
+    }
+
+    @Test
+    void movesWithinTheMatrix() {
+        Matrix matrix = new Matrix();
+        matrix.newShape(Shape.ShapeType.I, 0);
+        assertFalse(matrix.stepGame(Action.LEFT));
+        assertEquals(0, matrix.shape.x);
+        for (int i = 0; i < 10; i++) {
+            matrix.stepGame(Action.RIGHT);
+        }
+        assertEquals(Matrix.COLS - 4, matrix.shape.x);
+
+        // Upright at the right edge, it cannot turn back flat
+        matrix.shape.x = Matrix.COLS - 1;
+        matrix.shape.rotateRight();
+        assertTrue(matrix.actionAllowed());
+        Piece upright = matrix.shape.piece;
+        matrix.stepGame(Action.ROTATE_RIGHT);
+        assertSame(upright, matrix.shape.piece);
+        matrix.stepGame(Action.ROTATE_LEFT);
+        assertSame(upright, matrix.shape.piece);
+        matrix.shape.x = 0;
+        matrix.stepGame(Action.ROTATE_LEFT);
+        assertSame(upright.rotateLeft(), matrix.shape.piece);
+    }
+
+    @Test
+    void dropsAsAddPieceToMatrix() {
+        Random random = new Random(23);
+        Matrix played = new Matrix();
+        Matrix dropped = new Matrix();
+        for (int i = 0; i < 3000; i++) {
+            Shape.ShapeType shapeType = SHAPE_TYPES[random.nextInt(SHAPE_TYPES.length)];
+            int rotation = random.nextInt(Piece.ROTATIONS);
+            Piece piece = Piece.of(shapeType, rotation);
+            int column = random.nextInt(Matrix.COLS - piece.width() + 1);
+
+            // Turned at the left edge, where every rotation fits, then moved
+            played.newShape(shapeType, 0);
+            for (int turn = 0; turn < rotation; turn++) {
+                played.stepGame(Action.ROTATE_RIGHT);
+            }
+            assertSame(piece, played.shape.piece);
+            for (int col = 0; col < column; col++) {
+                played.stepGame(Action.RIGHT);
+            }
+            assertEquals(column, played.shape.x);
+            Action drop = i % 2 == 0 ? Action.HARD_DROP : Action.DOWN;
+            while (!played.stepGame(drop)) {
+                // one row at a time
+            }
+            played.lockDown();
+            dropped.addPieceToMatrix(piece, column);
+
+            assertEquals(dropped.getHeight(), played.getHeight());
+            for (int row = 0; row < dropped.getHeight(); row++) {
+                assertEquals(dropped.rows.word(row, 0), played.rows.word(row, 0), "row " + row);
+            }
+        }
+    }
+
+    // Whether every cell of the shape is within the matrix (which has no
+    //  top) and free
+    private static boolean allowedCellByCell(Matrix matrix, Shape shape) {
+        Piece piece = shape.piece;
+        int bottomRow = shape.y - (piece.height() - 1);
+        for (int cell = 0; cell < piece.cellCount(); cell++) {
+            int row = bottomRow + piece.cellRow(cell);
+            int col = shape.x + piece.cellCol(cell);
+            if (row < 0 || col < 0 || col >= matrix.getCols() || matrix.isOccupied(row, col)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Matrix randomMatrix(int cols, Random random) {
+        Matrix matrix = new Matrix(cols);
+        for (int i = 0; i < cols * 3; i++) {
+            Piece piece = Piece.of(SHAPE_TYPES[random.nextInt(SHAPE_TYPES.length)], random.nextInt(Piece.ROTATIONS));
+            matrix.addPieceToMatrix(piece, random.nextInt(cols - piece.width() + 1));
+        }
+        return matrix;
+    }
+}
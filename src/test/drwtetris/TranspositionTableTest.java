@@ -0,0 +1,81 @@
+package drwtetris;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class TranspositionTableTest {
+    @Test
+    void recordsScores() {
+        TranspositionTable table = new TranspositionTable(4);
+        assertTrue(Double.isNaN(table.get(42)));
+        table.put(42, -1.5);
+        assertEquals(-1.5, table.get(42));
+        table.put(42, 3.25);
+        assertEquals(3.25, table.get(42));
+
+        // Key 0 is never a hit, as it matches an empty entry
+        table.put(0, 1.0);
+        assertTrue(Double.isNaN(table.get(0)));
+
+        table.clear();
+        assertTrue(Double.isNaN(table.get(42)));
+    }
+
+    @Test
+    void replacesAnotherPositionOfTheSameEntry() {
+        TranspositionTable table = new TranspositionTable(4);
+        // 16 entries: keys 1 and 17 share one
+        table.put(1, 1.0);
+        table.put(17, 17.0);
+        assertTrue(Double.isNaN(table.get(1)));
+        assertEquals(17.0, table.get(17));
+    }
+
+    @Test
+    void neverReturnsTheScoreOfAnotherPosition() throws Exception {
+        // A small table, so that the threads keep overwriting each other's entries
+        TranspositionTable table = new TranspositionTable(6);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> tasks = new ArrayList<>();
+            for (int task = 0; task < 8; task++) {
+                long seed = task;
+                tasks.add(executor.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    int hits = 0;
+                    for (int i = 0; i < 1_000_000; i++) {
+                        long key = random.nextLong(1, 4096);
+                        double score = table.get(key);
+                        if (score == score) {
+                            assertEquals(scoreOf(key), score);
+                            hits++;
+                        } else {
+                            table.put(key, scoreOf(key));
+                        }
+                    }
+                    return hits;
+                }));
+            }
+            int hits = 0;
+            for (Future<Integer> task : tasks) {
+                hits += task.get();
+            }
+            assertTrue(hits > 0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static double scoreOf(long key) {
+        return key * 0.5 - 1000;
+    }
+}